@@ -0,0 +1,93 @@
+package com.example.reciperestapi.benchmark;
+
+import com.example.reciperestapi.auth.model.User;
+import com.example.reciperestapi.auth.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwtService} throughput: {@code generateToken} is paid on every login and refresh,
+ * validation on every request that reaches {@code JwtAuthenticationFilter}.
+ *
+ * {@code perCallParser} repeats what the filter used to do: decode the key and build a parser for
+ * every parse, and parse the token three times. {@code parseOnce} is the current path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "H2sFdOtF6LDSOytk4hKcNK+rR/ZGQxNLe/8FVZZXCCY=";
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKeyString", SECRET);
+        ReflectionTestUtils.setField(jwtService, "expirationTime", 3_600_000L);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+
+        user = new User();
+        user.setId(1L);
+        user.setEmail("bench@example.com");
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String parseOnce() {
+        return jwtService.parseValidClaims(token).map(Claims::getSubject).orElse(null);
+    }
+
+    @Benchmark
+    public boolean perCallParser() {
+        String username = parseWithNewParser(token).getSubject();
+        boolean sameUser = parseWithNewParser(token).getSubject().equals(username);
+        return sameUser && !parseWithNewParser(token).getExpiration().before(new Date());
+    }
+
+    private static Claims parseWithNewParser(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
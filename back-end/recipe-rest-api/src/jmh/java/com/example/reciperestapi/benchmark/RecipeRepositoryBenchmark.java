@@ -0,0 +1,129 @@
+package com.example.reciperestapi.benchmark;
+
+import com.example.reciperestapi.RecipeRestApiApplication;
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.model.Ingredient;
+import com.example.reciperestapi.recipe.model.MealCategory;
+import com.example.reciperestapi.recipe.model.Recipe;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * {@link RecipeRepository} against the embedded H2 database of the {@code test} profile, with the
+ * application's Hibernate settings: JDBC batching, pooled sequence ids and the second-level cache.
+ *
+ * {@code saveAll} stores a batch of new recipes in one transaction, as {@code POST /api/batch/recipes}
+ * does, change tracking included; what it adds is deleted again after every iteration. {@code findAll}
+ * reads the seeded recipes back from the query and entity caches, {@code findAllUncached} empties the
+ * caches first and so measures the fetch-joined query itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecipeRepositoryBenchmark {
+
+    @Param({"100", "1000"})
+    public int size;
+
+    private ConfigurableApplicationContext context;
+    private RecipeRepository recipeRepository;
+    private TransactionTemplate transactionTemplate;
+    private Cache cache;
+    private Set<Long> seeded;
+
+    @Setup
+    public void setUp() {
+        // Command-line arguments, so they win over application-test.properties
+        context = new SpringApplicationBuilder(RecipeRestApiApplication.class)
+                .profiles("test")
+                .run("--server.port=0", "--spring.jpa.show-sql=false", "--logging.level.root=WARN");
+        recipeRepository = context.getBean(RecipeRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        cache = context.getBean(EntityManagerFactory.class).getCache().unwrap(Cache.class);
+        seeded = recipeRepository.saveAll(recipes(size)).stream().map(Recipe::getId).collect(Collectors.toSet());
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeSaved() {
+        List<Long> saved = recipeRepository.findAllIds().stream().filter(id -> !seeded.contains(id)).toList();
+        if (!saved.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                recipeRepository.deleteIngredientsByRecipeIdIn(saved);
+                recipeRepository.deleteAllByIdIn(saved);
+            });
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Recipe> saveAll() {
+        return recipeRepository.saveAll(recipes(size));
+    }
+
+    @Benchmark
+    public List<Recipe> findAll() {
+        return recipeRepository.findAll();
+    }
+
+    @Benchmark
+    public List<Recipe> findAllUncached() {
+        cache.evictAllRegions();
+        return recipeRepository.findAll();
+    }
+
+    private static List<Recipe> recipes(int size) {
+        MealCategory[] categories = MealCategory.values();
+        List<Recipe> recipes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            List<Ingredient> ingredients = new ArrayList<>();
+            for (int j = 0; j < 8; j++) {
+                ingredients.add(new Ingredient(null, "Ingredient " + (i + j) % 200, (j + 1) * 50 + " g"));
+            }
+            Recipe recipe = new Recipe();
+            recipe.setName("Recipe " + i);
+            recipe.setDescription("Mix everything, cook for " + (10 + i % 50) + " minutes and serve warm.");
+            recipe.setCategory(categories[i % categories.length]);
+            recipe.setIngredients(ingredients);
+            recipes.add(recipe);
+        }
+        return recipes;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RecipeRepositoryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.reciperestapi.benchmark;
+
+import com.example.reciperestapi.recipe.model.Ingredient;
+import com.example.reciperestapi.recipe.model.MealCategory;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cost of a {@code GET /api/batch/recipes} body of 1, 100 or 10,000 recipes with 8 ingredients
+ * each, as JSON and as Smile (with and without shared string values), with and without gzip (what
+ * Tomcat does with {@code server.compression.enabled}). Payload sizes are reported next to
+ * the {@code serialize} and {@code serializeGzip} timings as their {@code bytes} counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecipeSerializationBenchmark {
+
+    private static final TypeReference<List<Recipe>> RECIPE_LIST = new TypeReference<>() {
+    };
+
+    @Param({"json", "smile", "smile-shared"})
+    public String format;
+
+    @Param({"1", "100", "10000"})
+    public int size;
+
+    private ObjectMapper mapper;
+    private List<Recipe> recipes;
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = switch (format) {
+            case "smile" -> SmileMapper.builder().build();
+            // Back-references for repeated short strings such as categories, as the Smile converter is configured
+            case "smile-shared" -> SmileMapper.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build();
+            default -> JsonMapper.builder().build();
+        };
+        recipes = recipes(size);
+        serialized = mapper.writeValueAsBytes(recipes);
+    }
+
+    @Benchmark
+    public byte[] serialize(PayloadSize payloadSize) throws IOException {
+        byte[] body = mapper.writeValueAsBytes(recipes);
+        payloadSize.record(body);
+        return body;
+    }
+
+    @Benchmark
+    public byte[] serializeGzip(PayloadSize payloadSize) throws IOException {
+        byte[] body = gzip(mapper.writeValueAsBytes(recipes));
+        payloadSize.record(body);
+        return body;
+    }
+
+    @Benchmark
+    public List<Recipe> deserialize() throws IOException {
+        return mapper.readValue(serialized, RECIPE_LIST);
+    }
+
+    /**
+     * Size of the body a benchmark produced, reported by JMH as a secondary result because it is a
+     * public field of an {@link AuxCounters} state. JMH adds such counters up over the measurement
+     * iterations, so only the first of them records the size.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long bytes;
+
+        private boolean recorded;
+        private boolean recording;
+
+        @Setup(Level.Iteration)
+        public void startIteration(IterationParams iteration) {
+            recording = !recorded && iteration.getType() == IterationType.MEASUREMENT;
+            recorded |= recording;
+        }
+
+        void record(byte[] body) {
+            if (recording) {
+                bytes = body.length;
+            }
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static List<Recipe> recipes(int size) {
+        MealCategory[] categories = MealCategory.values();
+        List<Recipe> recipes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            List<Ingredient> ingredients = new ArrayList<>();
+            for (int j = 0; j < 8; j++) {
+                ingredients.add(new Ingredient((long) i * 8 + j, "Ingredient " + (i + j) % 200, (j + 1) * 50 + " g"));
+            }
+            Recipe recipe = new Recipe();
+            recipe.setId((long) i);
+            recipe.setVersion(i % 5);
+            recipe.setName("Recipe " + i);
+            recipe.setDescription("Mix everything, cook for " + (10 + i % 50) + " minutes and serve warm.");
+            recipe.setImagePath("images/recipe-" + i + ".jpg");
+            recipe.setCategory(categories[i % categories.length]);
+            recipe.setIngredients(ingredients);
+            recipes.add(recipe);
+        }
+        return recipes;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RecipeSerializationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -5,11 +5,13 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EntityScan(basePackages = {"com.example.reciperestapi.recipe.model", "com.example.reciperestapi.auth.model"})
 @EnableJpaRepositories(basePackages = {"com.example.reciperestapi.recipe.dao", "com.example.reciperestapi.auth.repository"})
 @ComponentScan(basePackages = {"com.example.reciperestapi"})
+@EnableScheduling
 public class RecipeRestApiApplication {
 
     public static void main(String[] args) {
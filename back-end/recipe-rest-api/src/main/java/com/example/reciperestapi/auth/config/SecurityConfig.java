@@ -1,9 +1,18 @@
 package com.example.reciperestapi.auth.config;
 
 import com.example.reciperestapi.auth.filter.JwtAuthenticationFilter;
+import com.example.reciperestapi.auth.filter.RateLimitFilter;
+import com.example.reciperestapi.auth.service.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -19,6 +28,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
+    private final RateLimitFilter rateLimitFilter;
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -27,8 +37,16 @@ public class SecurityConfig {
             .cors(cors -> {}) // Use the CORS configuration from WebConfig
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> {
+                // Streaming responses finish on an async dispatch, and errors are rendered on an error dispatch
+                // to /error, which carries no token; the original request was already authorized
+                auth.dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll();
                 auth.requestMatchers("/api/auth/**").permitAll();
                 auth.requestMatchers("/h2-console/**").permitAll(); // For H2 database console if needed
+                // Image URLs go into <img> tags, which cannot send a bearer token; ids are unguessable hashes
+                auth.requestMatchers(HttpMethod.GET, "/api/images/**").permitAll();
+                // Load balancer checks and the Prometheus scraper. Actuator is served on management.server.port
+                // only, and these matchers match nothing on the public port
+                auth.requestMatchers(EndpointRequest.to("health", "prometheus")).permitAll();
                 auth.requestMatchers("/api/recipes/**").authenticated();
                 auth.requestMatchers("/api/batch/recipes/**").authenticated();
                 auth.anyRequest().authenticated();
@@ -39,13 +57,22 @@ public class SecurityConfig {
                     response.getWriter().write("Unauthorized: " + authException.getMessage());
                 })
             )
-            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+            // After authentication, so signed-in users are throttled by user id rather than by address
+            .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
             
         return http.build();
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.bcrypt.strength:10}") int strength,
+                                           @Value("${auth.password-hashing.threads:0}") int threads,
+                                           @Value("${auth.password-hashing.queue-capacity:0}") int queueCapacity,
+                                           ObjectProvider<MeterRegistry> meterRegistry) {
+        // BCrypt is CPU-bound: by default one hashing thread per core, and twice that many waiting
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        int queueSize = queueCapacity > 0 ? queueCapacity : 2 * poolSize;
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), poolSize, queueSize,
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
     }
 }
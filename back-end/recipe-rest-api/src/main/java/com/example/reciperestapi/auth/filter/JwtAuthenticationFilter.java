@@ -1,13 +1,18 @@
 package com.example.reciperestapi.auth.filter;
 
-import com.example.reciperestapi.auth.model.User;
-import com.example.reciperestapi.auth.repository.UserRepository;
-import com.example.reciperestapi.auth.service.JwtService;
+import com.example.reciperestapi.auth.model.AuthenticatedUser;
+import com.example.reciperestapi.auth.model.VerifiedToken;
+import com.example.reciperestapi.auth.service.JwtTokenCache;
+import com.example.reciperestapi.auth.service.UserPrincipalCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -19,12 +24,40 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Optional;
 
+/**
+ * Signs in requests that carry a bearer token. The time this takes, from reading the token to
+ * resolving the user, is the {@code auth.authentication} timer, tagged with the outcome
+ * ({@code authenticated}, {@code invalid_token} or {@code unknown_user}); requests without a
+ * token are not timed.
+ */
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtService jwtService;
-    private final UserRepository userRepository;
+    // Browsers' EventSource cannot send headers, so the change stream also takes the token as
+    // ?access_token=. Other paths ignore the parameter to keep tokens out of URLs and access logs
+    private static final String QUERY_TOKEN_PATH = "/api/recipes/changes/stream";
+    private static final String QUERY_TOKEN_PARAMETER = "access_token";
+
+    private final JwtTokenCache jwtTokenCache;
+    private final UserPrincipalCache userPrincipalCache;
+    private final Timer authenticated;
+    private final Timer invalidToken;
+    private final Timer unknownUser;
+
+    // Trust the signed userId and subject claims instead of checking that the user still exists
+    @Value("${auth.stateless:false}")
+    private boolean stateless;
+
+    public JwtAuthenticationFilter(JwtTokenCache jwtTokenCache,
+                                   UserPrincipalCache userPrincipalCache,
+                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        this.jwtTokenCache = jwtTokenCache;
+        this.userPrincipalCache = userPrincipalCache;
+        MeterRegistry registry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+        this.authenticated = authenticationTimer(registry, "authenticated");
+        this.invalidToken = authenticationTimer(registry, "invalid_token");
+        this.unknownUser = authenticationTimer(registry, "unknown_user");
+    }
 
     @Override
     protected void doFilterInternal(
@@ -33,33 +66,34 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain
     ) throws ServletException, IOException {
         try {
-            final String authHeader = request.getHeader("Authorization");
-            final String jwt;
-            final String userEmail;
+            final String jwt = bearerToken(request);
+            final Optional<VerifiedToken> verifiedToken;
             
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (jwt == null) {
                 filterChain.doFilter(request, response);
                 return;
             }
             
-            jwt = authHeader.substring(7);
-            userEmail = jwtService.extractUsername(jwt);
+            Timer.Sample sample = Timer.start();
+            // Signature and expiry are checked the first time a token is seen, then cached
+            verifiedToken = jwtTokenCache.verify(jwt);
+            final String userEmail = verifiedToken.map(VerifiedToken::getSubject).orElse(null);
             
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                Optional<User> userOptional = userRepository.findByEmail(userEmail);
+            if (userEmail == null) {
+                sample.stop(invalidToken);
+            } else if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                Optional<AuthenticatedUser> userOptional = resolveUser(verifiedToken.get());
+                sample.stop(userOptional.isPresent() ? authenticated : unknownUser);
                 if (userOptional.isPresent()) {
-                    User user = userOptional.get();
-                    if (jwtService.isTokenValid(jwt, user)) {
-                        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                                userEmail,
-                                null,
-                                new ArrayList<>()
-                        );
-                        authToken.setDetails(
-                                new WebAuthenticationDetailsSource().buildDetails(request)
-                        );
-                        SecurityContextHolder.getContext().setAuthentication(authToken);
-                    }
+                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                            userOptional.get(),
+                            null,
+                            new ArrayList<>()
+                    );
+                    authToken.setDetails(
+                            new WebAuthenticationDetailsSource().buildDetails(request)
+                    );
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
             }
             filterChain.doFilter(request, response);
@@ -68,4 +102,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             response.getWriter().write("Authentication error: " + e.getMessage());
         }
     }
+
+    private static Timer authenticationTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("auth.authentication")
+                .description("Bearer token verification and user lookup, by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static String bearerToken(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        if (QUERY_TOKEN_PATH.equals(request.getRequestURI().substring(request.getContextPath().length()))) {
+            return request.getParameter(QUERY_TOKEN_PARAMETER);
+        }
+        return null;
+    }
+
+    private Optional<AuthenticatedUser> resolveUser(VerifiedToken token) {
+        if (stateless && token.getUserId() != null) {
+            return Optional.of(new AuthenticatedUser(token.getUserId(), token.getSubject()));
+        }
+        return userPrincipalCache.findByEmail(token.getSubject());
+    }
 }
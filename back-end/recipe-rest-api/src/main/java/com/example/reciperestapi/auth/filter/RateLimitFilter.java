@@ -0,0 +1,159 @@
+package com.example.reciperestapi.auth.filter;
+
+import com.example.reciperestapi.auth.model.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles clients with a token bucket per route group and client, so that no single client
+ * can keep the BCrypt pool, the request threads or the connection pool busy. Runs in the
+ * security chain after {@link JwtAuthenticationFilter}:
+ * <ul>
+ *   <li>{@code auth}: sign-up, login and token refresh, per client IP. These are open to
+ *       everyone and each one costs a BCrypt hash or a user lookup</li>
+ *   <li>{@code batch}: writes to the batch, sync and replace-all endpoints, per signed-in user</li>
+ *   <li>{@code api}: every other {@code /api} request, per signed-in user</li>
+ * </ul>
+ * Requests without a signed-in user are counted per IP. Each group holds
+ * {@code rate-limit.<group>.capacity} tokens, refilled evenly over {@code rate-limit.<group>.period};
+ * a capacity of 0 turns the group off. A refused request gets 429 and a {@code Retry-After}.
+ *
+ * Buckets live in a bounded Caffeine cache, so a flood of new addresses cannot exhaust the heap;
+ * a bucket left alone for a whole period is full again, so dropping it then loses nothing.
+ * Decisions are published as the {@code rate.limit.requests} meter, tagged by group and result,
+ * and the buckets as the {@code cache.*} meters of cache "rate.limit.buckets".
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final List<String> BATCH_PATHS = List.of("/api/batch/recipes", "/api/recipes/replace-all", "/api/recipes/sync");
+
+    private final boolean enabled;
+    private final Limit auth;
+    private final Limit batch;
+    private final Limit api;
+    private final Cache<String, TokenBucket> buckets;
+
+    public RateLimitFilter(@Value("${rate-limit.enabled:true}") boolean enabled,
+                           @Value("${rate-limit.max-clients:100000}") long maxClients,
+                           @Value("${rate-limit.auth.capacity:10}") long authCapacity,
+                           @Value("${rate-limit.auth.period:1m}") Duration authPeriod,
+                           @Value("${rate-limit.batch.capacity:30}") long batchCapacity,
+                           @Value("${rate-limit.batch.period:1m}") Duration batchPeriod,
+                           @Value("${rate-limit.api.capacity:600}") long apiCapacity,
+                           @Value("${rate-limit.api.period:1m}") Duration apiPeriod,
+                           ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+        this.enabled = enabled;
+        this.auth = new Limit("auth", authCapacity, authPeriod, false, registry);
+        this.batch = new Limit("batch", batchCapacity, batchPeriod, true, registry);
+        this.api = new Limit("api", apiCapacity, apiPeriod, true, registry);
+        Duration longestPeriod = List.of(authPeriod, batchPeriod, apiPeriod).stream().max(Duration::compareTo).orElseThrow();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(longestPeriod)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, buckets, "rate.limit.buckets");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        Limit limit = limitFor(request);
+        if (limit == null || limit.capacity == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String key = limit.name + ':' + clientKey(request, limit.perUser);
+        long now = System.nanoTime();
+        long wait = buckets.get(key, k -> new TokenBucket(limit.capacity, limit.nanosPerToken, now)).tryTake(now);
+        if (wait == 0) {
+            limit.allowed.increment();
+            filterChain.doFilter(request, response);
+            return;
+        }
+        limit.rejected.increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.getWriter().write("Too many requests; retry in " + retryAfterSeconds + " seconds");
+    }
+
+    private Limit limitFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/auth/")) {
+            return auth;
+        }
+        if (!HttpMethod.GET.matches(request.getMethod()) && BATCH_PATHS.stream().anyMatch(path::startsWith)) {
+            return batch;
+        }
+        return path.startsWith("/api/") ? api : null;
+    }
+
+    // Behind a proxy, set server.forward-headers-strategy so the remote address is the client's
+    private static String clientKey(HttpServletRequest request, boolean perUser) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (perUser && authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return "user:" + user.getId();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static final class Limit {
+        final String name;
+        final long capacity;
+        final long nanosPerToken;
+        final boolean perUser;
+        final Counter allowed;
+        final Counter rejected;
+
+        Limit(String name, long capacity, Duration period, boolean perUser, MeterRegistry registry) {
+            this.name = name;
+            this.capacity = capacity;
+            this.nanosPerToken = capacity == 0 ? 0 : Math.max(1, period.toNanos() / capacity);
+            this.perUser = perUser;
+            this.allowed = counter(registry, name, "allowed");
+            this.rejected = counter(registry, name, "rejected");
+        }
+
+        private static Counter counter(MeterRegistry registry, String name, String result) {
+            return Counter.builder("rate.limit.requests")
+                    .description("Requests let through or refused by the rate limiter")
+                    .tag("group", name)
+                    .tag("result", result)
+                    .register(registry);
+        }
+    }
+}
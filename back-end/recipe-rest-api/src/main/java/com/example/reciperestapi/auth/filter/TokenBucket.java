@@ -0,0 +1,49 @@
+package com.example.reciperestapi.auth.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket that holds up to {@code capacity} tokens and gains one every
+ * {@code nanosPerToken}. Lock-free: the whole state is a single timestamp, the moment the bucket
+ * will be full again, updated with compare-and-set. A bucket whose timestamp lies in the past is
+ * full; each token taken pushes it {@code nanosPerToken} further into the future, and a token is
+ * refused when that would put it more than {@code capacity} tokens' worth ahead of now.
+ */
+final class TokenBucket {
+
+    private final long capacity;
+    private final long nanosPerToken;
+    private final AtomicLong fullAt;
+
+    /**
+     * @param now Current {@link System#nanoTime()}; the bucket starts full
+     */
+    TokenBucket(long capacity, long nanosPerToken, long now) {
+        if (capacity < 1 || nanosPerToken < 1) {
+            throw new IllegalArgumentException("Capacity and refill interval must be positive");
+        }
+        this.capacity = capacity;
+        this.nanosPerToken = nanosPerToken;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Takes one token if there is one.
+     * @param now Current {@link System#nanoTime()}
+     * @return 0 if a token was taken, otherwise the nanoseconds until the next one is available
+     */
+    long tryTake(long now) {
+        while (true) {
+            long current = fullAt.get();
+            // Compare as differences: nanoTime values may be negative and may wrap
+            long next = (current - now > 0 ? current : now) + nanosPerToken;
+            long wait = next - now - capacity * nanosPerToken;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
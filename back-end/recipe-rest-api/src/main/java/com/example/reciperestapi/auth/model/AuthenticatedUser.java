@@ -0,0 +1,20 @@
+package com.example.reciperestapi.auth.model;
+
+import lombok.Value;
+
+import java.security.Principal;
+
+/**
+ * Principal of an authenticated request. {@link #getName()} is the user's email, so code that
+ * only needs a name keeps working.
+ */
+@Value
+public class AuthenticatedUser implements Principal {
+    Long id;
+    String email;
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.reciperestapi.auth.model;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * What a bearer token proved once its signature and expiry were checked.
+ */
+@Value
+public class VerifiedToken {
+    String subject;         // User's email
+    Long userId;
+    Instant expiresAt;
+}
@@ -0,0 +1,131 @@
+package com.example.reciperestapi.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password hashing and verification on a small dedicated pool instead of whatever thread
+ * asked for it. BCrypt costs tens of milliseconds of CPU per call, so a login burst would
+ * otherwise keep every Tomcat thread busy hashing and stall unrelated requests.
+ *
+ * At most {@code threads} hashes run at once and {@code queueCapacity} wait for a thread. Any
+ * call beyond that fails straight away with 503, so a burst ties up a bounded number of
+ * request threads and leaves the CPU to everyone else.
+ *
+ * Published meters: {@code auth.password.hashing} (time spent hashing, by operation),
+ * {@code auth.password.queue} (time spent waiting for a hashing thread),
+ * {@code auth.password.in.flight} and {@code auth.password.rejected}.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Timer encoding;
+    private final Timer matching;
+    private final Timer queueWait;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity) {
+        this(delegate, threads, queueCapacity, Metrics.globalRegistry);
+    }
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.encoding = hashingTimer(meterRegistry, "encode");
+        this.matching = hashingTimer(meterRegistry, "matches");
+        this.queueWait = Timer.builder("auth.password.queue")
+                .description("Time password checks waited for a hashing thread")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("auth.password.rejected")
+                .description("Password checks refused with 503 because the hashing pool was full")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.in.flight", this, BoundedPasswordEncoder::inFlight)
+                .description("Password checks hashing or waiting for a thread")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encoding, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matching, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Number of calls currently hashing or waiting for a thread.
+     */
+    public int inFlight() {
+        return executor.getActiveCount() + executor.getQueue().size();
+    }
+
+    private static Timer hashingTimer(MeterRegistry registry, String operation) {
+        return Timer.builder("auth.password.hashing")
+                .description("Time spent hashing passwords on the hashing pool")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Timer timer, Callable<T> task) {
+        Future<T> future;
+        long submitted = System.nanoTime();
+        try {
+            future = executor.submit(() -> {
+                queueWait.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many sign-ins in progress, try again shortly");
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
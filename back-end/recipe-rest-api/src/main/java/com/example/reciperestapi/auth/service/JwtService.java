@@ -2,9 +2,12 @@ package com.example.reciperestapi.auth.service;
 
 import com.example.reciperestapi.auth.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -12,6 +15,7 @@ import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 @Service
@@ -26,9 +30,31 @@ public class JwtService {
     @Value("${jwt.refresh-expiration}")
     private long refreshExpirationTime;
 
-    private SecretKey getSigningKey() {
+    // Both are immutable and thread-safe, so they are built once instead of on every call
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
         byte[] keyBytes = Decoders.BASE64.decode(secretKeyString);
-        return Keys.hmacShaKeyFor(keyBytes);
+        signingKey = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
+    /**
+     * Parses and verifies a token once: the signature must match and the token must not be
+     * expired. Callers read everything they need from the returned claims instead of parsing
+     * the token again for each value.
+     * @return The token's claims, or empty if the token is malformed, forged or expired
+     */
+    public Optional<Claims> parseValidClaims(String token) {
+        try {
+            return Optional.of(parser.parseClaimsJws(token).getBody());
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
     }
 
     public String extractUsername(String token) {
@@ -45,16 +71,8 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-        } catch (Exception e) {
-            // Return empty claims on error
-            return Jwts.claims();
-        }
+        // Return empty claims on error
+        return parseValidClaims(token).orElseGet(Jwts::claims);
     }
 
     private Boolean isTokenExpired(String token) {
@@ -80,8 +98,9 @@ public class JwtService {
 
     public String generateTokenFromRefreshToken(String refreshToken) {
         // Extract user information from refresh token
-        String username = extractUsername(refreshToken);
-        Long userId = extractClaim(refreshToken, claims -> claims.get("userId", Long.class));
+        Claims refreshClaims = extractAllClaims(refreshToken);
+        String username = refreshClaims.getSubject();
+        Long userId = refreshClaims.get("userId", Long.class);
 
         // Create new claims for access token
         Map<String, Object> claims = new HashMap<>();
@@ -97,28 +116,22 @@ public class JwtService {
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
     public Boolean isTokenValid(String token, User user) {
-        final String username = extractUsername(token);
-        return (username.equals(user.getEmail()) && !isTokenExpired(token));
+        // Parsing already rejects expired tokens
+        return parseValidClaims(token)
+                .map(claims -> user.getEmail().equals(claims.getSubject()))
+                .orElse(false);
     }
 
     public Boolean isRefreshTokenValid(String token) {
-        try {
-            // Check if token is expired
-            if (isTokenExpired(token)) {
-                return false;
-            }
-
-            // Check if token is a refresh token
-            String tokenType = extractClaim(token, claims -> claims.get("tokenType", String.class));
-            return "refresh".equals(tokenType);
-        } catch (Exception e) {
-            return false;
-        }
+        // Must be unexpired and a refresh token
+        return parseValidClaims(token)
+                .map(claims -> "refresh".equals(claims.get("tokenType", String.class)))
+                .orElse(false);
     }
 }
 
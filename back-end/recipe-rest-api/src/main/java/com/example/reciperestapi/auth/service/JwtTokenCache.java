@@ -0,0 +1,139 @@
+package com.example.reciperestapi.auth.service;
+
+import com.example.reciperestapi.auth.model.VerifiedToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Remembers bearer tokens that have already been verified, so a client sending the same token on
+ * every request pays for signature verification and claim parsing only once.
+ *
+ * Entries are keyed by the SHA-256 of the token, so the cache never holds usable credentials,
+ * and each entry expires together with its token. Only valid tokens are cached.
+ * Hit and miss counts are published as the {@code cache.*} meters of cache "jwt.tokens".
+ * Every token checked counts towards {@code auth.token.validations}, tagged with the outcome
+ * ({@code cached}, {@code valid} or {@code invalid}); the time spent verifying tokens that were
+ * not cached is the {@code auth.token.verification} timer.
+ */
+@Service
+public class JwtTokenCache {
+
+    private final JwtService jwtService;
+    private final Cache<String, VerifiedToken> cache;
+    private final Counter cachedTokens;
+    private final Counter validTokens;
+    private final Counter invalidTokens;
+    private final Timer verification;
+
+    public JwtTokenCache(JwtService jwtService,
+                         @Value("${jwt.cache.max-size:10000}") long maxSize,
+                         ObjectProvider<MeterRegistry> meterRegistry) {
+        this.jwtService = jwtService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        return remainingNanos(token);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return remainingNanos(token);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        MeterRegistry registry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+        CaffeineCacheMetrics.monitor(registry, cache, "jwt.tokens");
+        this.cachedTokens = validations(registry, "cached");
+        this.validTokens = validations(registry, "valid");
+        this.invalidTokens = validations(registry, "invalid");
+        this.verification = Timer.builder("auth.token.verification")
+                .description("Signature check and claim parsing of tokens not seen before")
+                .register(registry);
+    }
+
+    /**
+     * Returns what the token proves, verifying it only if it has not been seen before.
+     * @return The verified subject and expiry, or empty if the token is malformed, forged or expired
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        String key = hash(token);
+        VerifiedToken cached = cache.getIfPresent(key);
+        if (cached != null) {
+            cachedTokens.increment();
+            return Optional.of(cached);
+        }
+        Optional<VerifiedToken> verified = verification.record(() ->
+                jwtService.parseValidClaims(token).map(JwtTokenCache::toVerifiedToken));
+        (verified.isPresent() ? validTokens : invalidTokens).increment();
+        // A token without an expiry would never leave the cache
+        verified.filter(value -> value.getExpiresAt() != null).ifPresent(value -> cache.put(key, value));
+        return verified;
+    }
+
+    // Invalidation hooks: call these when tokens must stop working before they expire
+
+    public void invalidate(String token) {
+        cache.invalidate(hash(token));
+    }
+
+    public void invalidateSubject(String subject) {
+        cache.asMap().values().removeIf(token -> subject.equals(token.getSubject()));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static Counter validations(MeterRegistry registry, String outcome) {
+        return Counter.builder("auth.token.validations")
+                .description("Bearer tokens checked, by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static VerifiedToken toVerifiedToken(Claims claims) {
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.get("userId", Long.class),
+                claims.getExpiration() == null ? null : claims.getExpiration().toInstant());
+    }
+
+    private static long remainingNanos(VerifiedToken token) {
+        return Math.max(0, Duration.between(Instant.now(), token.getExpiresAt()).toNanos());
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.reciperestapi.auth.service;
+
+import com.example.reciperestapi.auth.model.AuthenticatedUser;
+import com.example.reciperestapi.auth.model.User;
+import com.example.reciperestapi.auth.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Caches the users that bearer tokens resolve to, so authenticating a request does not cost a
+ * {@code users} lookup every time.
+ *
+ * Entries live for {@code auth.user-cache.ttl}. Any insert, update or delete of a {@link User}
+ * that goes through Hibernate evicts that user's entry once its transaction commits; evicting at
+ * flush would let a request authenticated before the commit cache the old row again.
+ * {@link #evict} covers changes made any other way. Unknown users are not cached.
+ */
+@Service
+public class UserPrincipalCache implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final UserRepository userRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Cache<String, AuthenticatedUser> cache;
+
+    public UserPrincipalCache(UserRepository userRepository,
+                              EntityManagerFactory entityManagerFactory,
+                              @Value("${auth.user-cache.ttl:5m}") Duration ttl,
+                              @Value("${auth.user-cache.max-size:10000}") long maxSize,
+                              ObjectProvider<MeterRegistry> meterRegistry) {
+        this.userRepository = userRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), cache, "auth.users");
+    }
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    /**
+     * @return The user with exactly this email, from the cache when possible
+     */
+    public Optional<AuthenticatedUser> findByEmail(String email) {
+        return Optional.ofNullable(cache.get(email, key -> userRepository.findByEmail(key)
+                // The database may compare emails case-insensitively; the token subject must match exactly
+                .filter(user -> key.equals(user.getEmail()))
+                .map(user -> new AuthenticatedUser(user.getId(), user.getEmail()))
+                .orElse(null)));
+    }
+
+    public void evict(String email) {
+        cache.invalidate(email);
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof User user) {
+            evict(user.getEmail());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof User user) {
+            evict(user.getEmail());
+            // The email itself may have changed; evict the old one too
+            Object[] oldState = event.getOldState();
+            if (oldState == null) {
+                evictAll();
+            } else {
+                int email = event.getPersister().getEntityMetamodel().getPropertyIndex("email");
+                if (oldState[email] instanceof String oldEmail) {
+                    evict(oldEmail);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof User user) {
+            evict(user.getEmail());
+        }
+    }
+
+    // A rolled-back change leaves the cached row as it was
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return true;
+    }
+}
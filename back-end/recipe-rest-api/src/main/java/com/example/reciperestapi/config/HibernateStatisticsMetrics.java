@@ -0,0 +1,72 @@
+package com.example.reciperestapi.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes Hibernate's session factory statistics: statements prepared, queries run, entity and
+ * collection loads and writes, flushes and transactions. A jump in statements per request is how
+ * an N+1 or a lost batch shows up in production. Needs {@code hibernate.generate_statistics=true}.
+ *
+ * Takes the place of the {@code hibernate-micrometer} binder, which is not published for the
+ * Hibernate version this project uses.
+ */
+@Component
+public class HibernateStatisticsMetrics {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final MeterRegistry meterRegistry;
+
+    public HibernateStatisticsMetrics(EntityManagerFactory entityManagerFactory, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+    }
+
+    @PostConstruct
+    void bind() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        counter("hibernate.statements", statistics, "status", "prepared", Statistics::getPrepareStatementCount,
+                "Statements prepared, one per database round-trip");
+        counter("hibernate.query.executions", statistics, null, null, Statistics::getQueryExecutionCount,
+                "HQL and native queries run");
+        counter("hibernate.entities.loads", statistics, null, null, Statistics::getEntityLoadCount, null);
+        counter("hibernate.entities.fetches", statistics, null, null, Statistics::getEntityFetchCount,
+                "Entities fetched lazily, each with its own query");
+        counter("hibernate.entities.inserts", statistics, null, null, Statistics::getEntityInsertCount, null);
+        counter("hibernate.entities.updates", statistics, null, null, Statistics::getEntityUpdateCount, null);
+        counter("hibernate.entities.deletes", statistics, null, null, Statistics::getEntityDeleteCount, null);
+        counter("hibernate.collections.loads", statistics, null, null, Statistics::getCollectionLoadCount, null);
+        counter("hibernate.collections.fetches", statistics, null, null, Statistics::getCollectionFetchCount,
+                "Collections fetched lazily, each with its own query");
+        counter("hibernate.flushes", statistics, null, null, Statistics::getFlushCount, null);
+        counter("hibernate.transactions", statistics, "result", "success", Statistics::getSuccessfulTransactionCount, null);
+        counter("hibernate.transactions", statistics, "result", "failure",
+                s -> s.getTransactionCount() - s.getSuccessfulTransactionCount(), null);
+        counter("hibernate.optimistic.failures", statistics, null, null, Statistics::getOptimisticFailureCount,
+                "Writes refused because the row had changed since it was read");
+        Gauge.builder("hibernate.query.executions.max", statistics, s -> s.getQueryExecutionMaxTime() / 1000.0)
+                .description("Slowest query run so far")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    private void counter(String name, Statistics statistics, String tag, String tagValue,
+                         ToDoubleFunction<Statistics> value, String description) {
+        FunctionCounter.Builder<Statistics> counter = FunctionCounter.builder(name, statistics, value)
+                .description(description);
+        if (tag != null) {
+            counter.tag(tag, tagValue);
+        }
+        counter.register(meterRegistry);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.reciperestapi.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * Gives Hibernate's second-level cache a JCache manager of its own. Left to itself, Hibernate
+ * uses the Caffeine provider's default manager, which every session factory in the JVM shares,
+ * and closes it when its session factory closes: the first application context to shut down
+ * (in tests, or a devtools restart) would close the caches of all the others.
+ *
+ * The manager's URI is unique per context; Caffeine still reads the region settings from
+ * {@code application.conf}. It is closed with the context.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager() {
+        return Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("urn:recipe-rest-api:second-level-cache:" + UUID.randomUUID()),
+                        getClass().getClassLoader());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManagerCustomizer(CacheManager secondLevelCacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.reciperestapi.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes hits, misses, puts and the hit ratio of every Hibernate second-level cache region,
+ * tagged with the region name. Needs {@code hibernate.generate_statistics=true}.
+ */
+@Component
+public class SecondLevelCacheMetrics {
+
+    private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final MeterRegistry meterRegistry;
+
+    public SecondLevelCacheMetrics(EntityManagerFactory entityManagerFactory, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+    }
+
+    @PostConstruct
+    void bind() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Set<String> regions = new TreeSet<>(Set.of(statistics.getSecondLevelCacheRegionNames()));
+        if (statistics.getCacheRegionStatistics(QUERY_RESULTS_REGION) != null) {
+            regions.add(QUERY_RESULTS_REGION);
+        }
+        for (String region : regions) {
+            counter("hibernate.second.level.cache.requests", statistics, region, "hit", CacheRegionStatistics::getHitCount);
+            counter("hibernate.second.level.cache.requests", statistics, region, "miss", CacheRegionStatistics::getMissCount);
+            counter("hibernate.second.level.cache.puts", statistics, region, null, CacheRegionStatistics::getPutCount);
+            Gauge.builder("hibernate.second.level.cache.hit.ratio", statistics, s -> hitRatio(s.getCacheRegionStatistics(region)))
+                    .description("Share of lookups in the region that were answered from the cache")
+                    .tag("region", region)
+                    .register(meterRegistry);
+        }
+    }
+
+    private void counter(String name, Statistics statistics, String region, String result,
+                         ToLongFunction<CacheRegionStatistics> value) {
+        FunctionCounter.Builder<Statistics> counter = FunctionCounter.builder(name, statistics, s -> {
+                    CacheRegionStatistics regionStatistics = s.getCacheRegionStatistics(region);
+                    return regionStatistics == null ? 0 : value.applyAsLong(regionStatistics);
+                })
+                .tag("region", region);
+        if (result != null) {
+            counter.tag("result", result);
+        }
+        counter.register(meterRegistry);
+    }
+
+    private static double hitRatio(CacheRegionStatistics statistics) {
+        if (statistics == null) {
+            return Double.NaN;
+        }
+        long lookups = statistics.getHitCount() + statistics.getMissCount();
+        return lookups == 0 ? Double.NaN : (double) statistics.getHitCount() / lookups;
+    }
+}
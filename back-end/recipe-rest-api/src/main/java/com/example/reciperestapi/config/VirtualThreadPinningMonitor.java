@@ -0,0 +1,74 @@
+package com.example.reciperestapi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread, typically inside a
+ * {@code synchronized} block or a native frame. A pinned virtual thread holds a carrier for as
+ * long as it blocks, so a few of them can stall every other virtual thread.
+ *
+ * Listens to the JFR {@code jdk.VirtualThreadPinned} event in-process, logs the stack of every
+ * pin that lasts longer than the threshold and counts them in {@code jvm.threads.virtual.pinned}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.virtual-threads.pinning-monitor.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_FRAMES = 20;
+
+    private final Duration threshold;
+    private final Counter pinned;
+    private RecordingStream recording;
+
+    public VirtualThreadPinningMonitor(@Value("${app.virtual-threads.pinning-monitor.threshold:20ms}") Duration threshold,
+                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        this.threshold = threshold;
+        this.pinned = Counter.builder("jvm.threads.virtual.pinned")
+                .description("Virtual threads that blocked while pinned to their carrier")
+                .register(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @PostConstruct
+    void start() {
+        recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::report);
+        recording.startAsync();
+        log.info("Reporting virtual threads pinned for longer than {}", threshold);
+    }
+
+    @PreDestroy
+    void stop() {
+        recording.close();
+    }
+
+    private void report(RecordedEvent event) {
+        pinned.increment();
+        StringBuilder stack = new StringBuilder();
+        if (event.getStackTrace() != null) {
+            event.getStackTrace().getFrames().stream()
+                    .limit(MAX_FRAMES)
+                    .map(RecordedFrame::getMethod)
+                    .forEach(method -> stack.append("\n\tat ").append(method.getType().getName())
+                            .append('.').append(method.getName()));
+        }
+        log.warn("Virtual thread {} pinned for {} ms{}", event.getThread() == null ? "?" : event.getThread().getJavaName(),
+                event.getDuration().toMillis(), stack);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.reciperestapi.image.controller;
+
+import com.example.reciperestapi.image.model.ImageRendition;
+import com.example.reciperestapi.image.model.ImageUploadResponse;
+import com.example.reciperestapi.image.service.ImageStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@RestController
+@RequestMapping("/api/images")
+public class ImageController {
+
+    // Stored files never change, so browsers and CDNs may keep them for a year without asking
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    // Below this, handing the file to Tomcat's sendfile thread costs more than copying it
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+    private static final Pattern SINGLE_RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    private final ImageStorageService imageStorageService;
+
+    @Autowired
+    public ImageController(ImageStorageService imageStorageService) {
+        this.imageStorageService = imageStorageService;
+    }
+
+    /**
+     * Endpoint to upload a recipe image. The image is stored under the SHA-256 of its bytes and
+     * its medium and thumbnail renditions are drawn in the background.
+     * @param file JPEG, PNG, GIF or BMP image as the multipart part "file"
+     * @return Image id, size and the URLs of the original and its renditions
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImageUploadResponse> uploadImage(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return new ResponseEntity<>(imageStorageService.store(in), HttpStatus.CREATED);
+        }
+    }
+
+    /**
+     * Endpoint to download an image or one of its renditions. Supports single byte ranges and
+     * conditional requests. A rendition that is still being drawn is answered with the original,
+     * marked so it is not cached.
+     * @param id Image id returned by the upload
+     * @param renditionName original, medium or thumbnail
+     */
+    @GetMapping("/{id}/{rendition}")
+    public void getImage(@PathVariable String id,
+                         @PathVariable("rendition") String renditionName,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        ImageRendition rendition = ImageRendition.fromPathName(renditionName)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        Optional<Path> stored = imageStorageService.find(id, rendition);
+        boolean pending = stored.isEmpty() && rendition != ImageRendition.ORIGINAL;
+        Path file = (pending ? imageStorageService.find(id, ImageRendition.ORIGINAL) : stored)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, pending ? "no-cache" : IMMUTABLE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        String etag = "\"" + id + "-" + file.getFileName() + "\"";
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return;
+        }
+        response.setContentType(MediaTypeFactory.getMediaType(new FileSystemResource(file))
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            long start = 0;
+            long end = length - 1;
+            String range = request.getHeader(HttpHeaders.RANGE);
+            if (range != null && ifRangeMatches(request, etag)) {
+                Matcher matcher = SINGLE_RANGE.matcher(range.trim());
+                // Several ranges would need a multipart/byteranges body; clients also accept the whole file
+                if (matcher.matches() && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+                    if (matcher.group(1).isEmpty()) {
+                        start = Math.max(0, length - Long.parseLong(matcher.group(2)));
+                    } else {
+                        start = Long.parseLong(matcher.group(1));
+                        if (!matcher.group(2).isEmpty()) {
+                            end = Math.min(end, Long.parseLong(matcher.group(2)));
+                        }
+                    }
+                    if (start >= length || start > end) {
+                        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                        response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                        return;
+                    }
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            }
+            long count = end - start + 1;
+            response.setContentLengthLong(count);
+            if ("HEAD".equals(request.getMethod()) || count == 0) {
+                return;
+            }
+            send(request, response, file, channel, start, count);
+        }
+    }
+
+    private static void send(HttpServletRequest request, HttpServletResponse response,
+                             Path file, FileChannel channel, long start, long count) throws IOException {
+        // Tomcat's NIO connector can write the file with sendfile(2) after the servlet returns,
+        // so the bytes go from the page cache to the socket without passing through the heap
+        if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support")) && count >= SENDFILE_THRESHOLD) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", file.toAbsolutePath().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", start);
+            request.setAttribute("org.apache.tomcat.sendfile.end", start + count);
+            return;
+        }
+        WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+        long position = start;
+        long remaining = count;
+        while (remaining > 0) {
+            long written = channel.transferTo(position, remaining, out);
+            position += written;
+            remaining -= written;
+        }
+    }
+
+    // If-Range: only send the range if the file is still the one the client has the rest of
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        return ifRange == null || ifRange.equals(etag);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.reciperestapi.image.model;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Sizes an uploaded image is served in. Renditions are scaled down so their longer edge is at
+ * most {@code maxEdge} pixels; the original is kept as uploaded.
+ */
+public enum ImageRendition {
+    ORIGINAL(0),
+    MEDIUM(800),
+    THUMBNAIL(200);
+
+    private final int maxEdge;
+
+    ImageRendition(int maxEdge) {
+        this.maxEdge = maxEdge;
+    }
+
+    public int getMaxEdge() {
+        return maxEdge;
+    }
+
+    // Name used in URLs and file names
+    public String pathName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static Optional<ImageRendition> fromPathName(String pathName) {
+        for (ImageRendition rendition : values()) {
+            if (rendition.pathName().equals(pathName)) {
+                return Optional.of(rendition);
+            }
+        }
+        return Optional.empty();
+    }
+}
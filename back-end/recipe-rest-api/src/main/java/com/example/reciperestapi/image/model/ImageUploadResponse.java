@@ -0,0 +1,19 @@
+package com.example.reciperestapi.image.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageUploadResponse {
+    private String id;          // SHA-256 of the uploaded bytes; uploading the same file again gives the same id
+    private int width;
+    private int height;
+    private String original;    // URL of the image as uploaded; store this in Recipe.imagePath
+    private String medium;      // URL of the rendition for detail views
+    private String thumbnail;   // URL of the rendition for list views
+}
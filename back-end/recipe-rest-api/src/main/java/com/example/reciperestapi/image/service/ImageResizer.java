@@ -0,0 +1,88 @@
+package com.example.reciperestapi.image.service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Scales images down with Java2D and writes them as JPEG, or as PNG when they have
+ * transparency.
+ */
+final class ImageResizer {
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private ImageResizer() {
+    }
+
+    /**
+     * Scales the image so its longer edge is at most {@code maxEdge} pixels. Smaller images keep
+     * their size. The result is always plain RGB or ARGB, which every writer accepts.
+     */
+    static BufferedImage scaleDown(BufferedImage source, int maxEdge) {
+        int longerEdge = Math.max(source.getWidth(), source.getHeight());
+        if (longerEdge <= maxEdge) {
+            return draw(source, source.getWidth(), source.getHeight(), hasAlpha(source));
+        }
+        double scale = (double) maxEdge / longerEdge;
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        // Halve in steps: one bilinear pass from a large photo straight to a thumbnail aliases badly
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height, hasAlpha(source));
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    static boolean hasAlpha(BufferedImage image) {
+        return image.getColorModel().hasAlpha();
+    }
+
+    static String extension(BufferedImage image) {
+        return hasAlpha(image) ? "png" : "jpg";
+    }
+
+    static void write(BufferedImage image, Path target) throws IOException {
+        if (hasAlpha(image)) {
+            ImageIO.write(image, "png", target.toFile());
+            return;
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, boolean alpha) {
+        BufferedImage target = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+}
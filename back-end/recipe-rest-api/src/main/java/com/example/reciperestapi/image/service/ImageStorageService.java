@@ -0,0 +1,265 @@
+package com.example.reciperestapi.image.service;
+
+import com.example.reciperestapi.image.model.ImageRendition;
+import com.example.reciperestapi.image.model.ImageUploadResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Stores uploaded images on the local filesystem under the SHA-256 of their bytes, so the same
+ * photo uploaded twice is kept once and a stored file never changes. Each image gets its own
+ * directory holding the original and its renditions:
+ * <pre>
+ * {storage-dir}/3f/3fa8…/original.jpg
+ *                        medium.jpg
+ *                        thumbnail.jpg
+ * </pre>
+ * Renditions are drawn on a small background pool after the upload has been answered. If that
+ * pool is busy, or the application stopped before it got to an image, the rendition is drawn
+ * the first time it is asked for.
+ */
+@Slf4j
+@Service
+public class ImageStorageService {
+
+    private static final Pattern IMAGE_ID = Pattern.compile("[0-9a-f]{64}");
+
+    // ImageIO format name -> extension of the stored original; only formats browsers can show
+    private static final Map<String, String> ORIGINAL_FORMATS = Map.of(
+            "jpeg", "jpg",
+            "png", "png",
+            "gif", "gif",
+            "bmp", "bmp");
+
+    private static final List<String> RENDITION_EXTENSIONS = List.of("jpg", "png");
+
+    private final Path storageDir;
+    private final Path tempDir;
+    private final long maxPixels;
+    private final ThreadPoolExecutor renderer;
+    // Images with renditions being drawn, so each is only queued once
+    private final Set<String> rendering = ConcurrentHashMap.newKeySet();
+
+    public ImageStorageService(@Value("${image.storage-dir:data/images}") Path storageDir,
+                               @Value("${image.render-threads:2}") int renderThreads,
+                               @Value("${image.max-pixels:25000000}") long maxPixels) {
+        this.storageDir = storageDir;
+        this.tempDir = storageDir.resolve("tmp");
+        this.maxPixels = maxPixels;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.renderer = new ThreadPoolExecutor(renderThreads, renderThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1000),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-renderer-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PostConstruct
+    void createDirectories() throws IOException {
+        Files.createDirectories(tempDir);
+    }
+
+    @PreDestroy
+    void stopRendering() {
+        renderer.shutdownNow();
+    }
+
+    /**
+     * Stores an uploaded image and queues its renditions.
+     * @throws ResponseStatusException 400 if the bytes are not a JPEG, PNG, GIF or BMP image, or the
+     *                                 image has more than {@code image.max-pixels} pixels
+     */
+    public ImageUploadResponse store(InputStream upload) throws IOException {
+        Path temp = Files.createTempFile(tempDir, "upload-", ".tmp");
+        try {
+            MessageDigest sha256 = sha256();
+            try (InputStream in = new DigestInputStream(upload, sha256)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String id = HexFormat.of().formatHex(sha256.digest());
+            // Only the header is read here; the pixels are decoded later, on the render pool
+            ImageHeader header = readHeader(temp);
+
+            Path directory = directory(id);
+            Files.createDirectories(directory);
+            Path original = directory.resolve(fileName(ImageRendition.ORIGINAL, header.extension()));
+            try {
+                Files.move(temp, original, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Same bytes uploaded before
+            }
+            scheduleRenditions(id, original);
+
+            return ImageUploadResponse.builder()
+                    .id(id)
+                    .width(header.width())
+                    .height(header.height())
+                    .original(url(id, ImageRendition.ORIGINAL))
+                    .medium(url(id, ImageRendition.MEDIUM))
+                    .thumbnail(url(id, ImageRendition.THUMBNAIL))
+                    .build();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * The stored file for a rendition, if it exists. A missing rendition of a stored image is
+     * queued for drawing.
+     */
+    public Optional<Path> find(String id, ImageRendition rendition) {
+        if (!IMAGE_ID.matcher(id).matches()) {
+            return Optional.empty();
+        }
+        Optional<Path> original = existing(id, ImageRendition.ORIGINAL, ORIGINAL_FORMATS.values());
+        if (rendition == ImageRendition.ORIGINAL || original.isEmpty()) {
+            return original;
+        }
+        Optional<Path> file = existing(id, rendition, RENDITION_EXTENSIONS);
+        if (file.isEmpty()) {
+            scheduleRenditions(id, original.get());
+        }
+        return file;
+    }
+
+    public static String url(String id, ImageRendition rendition) {
+        return "/api/images/" + id + "/" + rendition.pathName();
+    }
+
+    private void scheduleRenditions(String id, Path original) {
+        if (!rendering.add(id)) {
+            return;
+        }
+        try {
+            renderer.execute(() -> {
+                try {
+                    render(id, original);
+                } catch (Exception e) {
+                    log.warn("Could not draw renditions of image {}", id, e);
+                } finally {
+                    rendering.remove(id);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Pool is saturated; the rendition is queued again the next time it is asked for
+            rendering.remove(id);
+        }
+    }
+
+    private void render(String id, Path original) throws IOException {
+        BufferedImage source = ImageIO.read(original.toFile());
+        if (source == null) {
+            throw new IOException("No reader for " + original);
+        }
+        // Largest first, so each rendition is scaled from the previous one rather than the original
+        for (ImageRendition rendition : List.of(ImageRendition.MEDIUM, ImageRendition.THUMBNAIL)) {
+            BufferedImage scaled = ImageResizer.scaleDown(source, rendition.getMaxEdge());
+            if (existing(id, rendition, RENDITION_EXTENSIONS).isEmpty()) {
+                Path temp = Files.createTempFile(tempDir, rendition.pathName() + "-", ".tmp");
+                try {
+                    ImageResizer.write(scaled, temp);
+                    Path target = directory(id).resolve(fileName(rendition, ImageResizer.extension(scaled)));
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            }
+            source = scaled;
+        }
+    }
+
+    private ImageHeader readHeader(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a JPEG, PNG, GIF or BMP image");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                String extension = ORIGINAL_FORMATS.get(reader.getFormatName().toLowerCase(Locale.ROOT));
+                if (extension == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a JPEG, PNG, GIF or BMP image");
+                }
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                // A small, highly compressed file can still decode to gigabytes of pixels
+                if ((long) width * height > maxPixels) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Image has " + width + "x" + height + " pixels; at most " + maxPixels + " are accepted");
+                }
+                return new ImageHeader(extension, width, height);
+            } catch (IOException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Image cannot be read: " + e.getMessage());
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private Optional<Path> existing(String id, ImageRendition rendition, Iterable<String> extensions) {
+        Path directory = directory(id);
+        for (String extension : extensions) {
+            Path file = directory.resolve(fileName(rendition, extension));
+            if (Files.isRegularFile(file)) {
+                return Optional.of(file);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Path directory(String id) {
+        return storageDir.resolve(id.substring(0, 2)).resolve(id);
+    }
+
+    private static String fileName(ImageRendition rendition, String extension) {
+        return rendition.pathName() + "." + extension;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record ImageHeader(String extension, int width, int height) {
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.reciperestapi.recipe.config;
+
+import com.example.reciperestapi.auth.model.AuthenticatedUser;
+import org.hibernate.cfg.MultiTenancySettings;
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Tells Hibernate whose recipes a session works with. {@code Recipe.ownerId} is the entity's
+ * {@code @TenantId}, so every query a session runs, whether a repository finder, a Spring Data
+ * REST resource or a batch endpoint, is restricted to the owner resolved here when the session
+ * is opened, and new recipes get that owner. With open-in-view the session is opened after
+ * authentication, so the owner is the user id from the request's JWT.
+ *
+ * Sessions opened without any authentication (startup, scheduled jobs, the search indexer) work
+ * with every owner's recipes. Anonymous requests, and any principal other than a user signed in
+ * with a JWT, see none.
+ */
+@Component
+public class RecipeOwnerResolver implements CurrentTenantIdentifierResolver<Long>, HibernatePropertiesCustomizer {
+
+    // Owner of sessions that may read and write every user's recipes
+    public static final Long ALL_OWNERS = 0L;
+    // User ids start at 1, so no recipe belongs to this owner
+    public static final Long NO_OWNER = -1L;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(MultiTenancySettings.MULTI_TENANT_IDENTIFIER_RESOLVER, this);
+    }
+
+    @Override
+    public Long resolveCurrentTenantIdentifier() {
+        return currentOwner();
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+
+    @Override
+    public boolean isRoot(Long owner) {
+        return ALL_OWNERS.equals(owner);
+    }
+
+    /**
+     * Owner of the recipes the current thread works with: the signed-in user's id,
+     * {@link #ALL_OWNERS} without any authentication and {@link #NO_OWNER} for anything else.
+     */
+    public static Long currentOwner() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return ALL_OWNERS;
+        }
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.getId();
+        }
+        // Anonymous, or a principal JwtAuthenticationFilter did not create: fail closed
+        return NO_OWNER;
+    }
+}
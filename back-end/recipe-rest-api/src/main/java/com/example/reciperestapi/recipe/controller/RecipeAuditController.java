@@ -0,0 +1,35 @@
+package com.example.reciperestapi.recipe.controller;
+
+import com.example.reciperestapi.recipe.model.RecipeAuditEntry;
+import com.example.reciperestapi.recipe.service.RecipeAuditService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/audit")
+public class RecipeAuditController {
+
+    private final RecipeAuditService recipeAuditService;
+
+    @Autowired
+    public RecipeAuditController(RecipeAuditService recipeAuditService) {
+        this.recipeAuditService = recipeAuditService;
+    }
+
+    /**
+     * Endpoint to list every change made to a recipe: who made it, when, and what changed
+     * @param id Recipe id; deleted recipes keep their history
+     * @return Changes in the order they were committed, oldest first
+     */
+    @GetMapping("/recipes/{id}")
+    public ResponseEntity<List<RecipeAuditEntry>> getRecipeHistory(@PathVariable Long id) {
+        return new ResponseEntity<>(recipeAuditService.history(id), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.reciperestapi.recipe.controller;
+
+import com.example.reciperestapi.recipe.model.RecipeChangesResponse;
+import com.example.reciperestapi.recipe.service.RecipeChangeFeed;
+import com.example.reciperestapi.recipe.service.RecipeDeltaSyncService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/recipes/changes")
+public class RecipeChangeController {
+
+    private final RecipeChangeFeed recipeChangeFeed;
+    private final RecipeDeltaSyncService recipeDeltaSyncService;
+
+    @Autowired
+    public RecipeChangeController(RecipeChangeFeed recipeChangeFeed,
+                                  RecipeDeltaSyncService recipeDeltaSyncService) {
+        this.recipeChangeFeed = recipeChangeFeed;
+        this.recipeDeltaSyncService = recipeDeltaSyncService;
+    }
+
+    /**
+     * Endpoint to catch up on recipe changes instead of reloading every recipe.
+     * Start with {@code since=0}, which returns every recipe, then pass the {@code nextSince}
+     * of each response on the next call; repeat at once while {@code hasMore} is true.
+     * @param since Sequence number returned as nextSince by the previous call
+     * @param size Maximum number of changed and deleted recipes to return (max 500)
+     * @return Recipes changed since then, in full, and ids of recipes deleted since then
+     */
+    @GetMapping
+    public ResponseEntity<RecipeChangesResponse> getChanges(@RequestParam(defaultValue = "0") long since,
+                                                            @RequestParam(defaultValue = "500") int size) {
+        return ResponseEntity.ok(recipeDeltaSyncService.changesSince(since, size));
+    }
+
+    /**
+     * Endpoint to receive recipe changes as server-sent events instead of polling the list.
+     * Each {@code recipe} event carries the recipe id, CREATED/UPDATED/DELETED and the new version.
+     * A {@code reset} event means changes were missed and the list should be reloaded.
+     * Browsers pass the JWT as {@code ?access_token=}, since EventSource cannot set headers.
+     * @param lastEventId Id of the last event received, sent by EventSource when it reconnects
+     * @return The event stream
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return recipeChangeFeed.subscribe(lastEventId);
+    }
+}
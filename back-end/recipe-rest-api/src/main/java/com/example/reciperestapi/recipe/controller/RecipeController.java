@@ -2,22 +2,67 @@ package com.example.reciperestapi.recipe.controller;
 
 import com.example.reciperestapi.recipe.dao.RecipeRepository;
 import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.recipe.model.RecipeImportResponse;
+import com.example.reciperestapi.recipe.model.RecipePage;
+import com.example.reciperestapi.recipe.model.RecipePatch;
+import com.example.reciperestapi.recipe.model.RecipeSummary;
+import com.example.reciperestapi.recipe.model.RecipeSyncResponse;
+import com.example.reciperestapi.recipe.service.RecipeExportService;
+import com.example.reciperestapi.recipe.service.RecipeImportService;
+import com.example.reciperestapi.recipe.service.RecipePatchService;
+import com.example.reciperestapi.recipe.service.RecipeSyncService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.function.Supplier;
 
+/**
+ * Besides the per-endpoint {@code http.server.requests} timers, every batch write records the
+ * {@code recipe.batch.write} timer, which leaves out reading and writing the JSON, and the
+ * {@code recipe.batch.size} summary of how many recipes it carried, both tagged with the operation.
+ */
 @RestController
 @RequestMapping("/api")
 public class RecipeController {
 
     private final RecipeRepository recipeRepository;
+    private final RecipeSyncService recipeSyncService;
+    private final RecipeImportService recipeImportService;
+    private final RecipeExportService recipeExportService;
+    private final RecipePatchService recipePatchService;
+    // Largest list a single buffered request may carry; bigger sets go through the streaming import
+    private final int maxBatchSize;
+    private final MeterRegistry meterRegistry;
 
     @Autowired
-    public RecipeController(RecipeRepository recipeRepository) {
+    public RecipeController(RecipeRepository recipeRepository,
+                            RecipeSyncService recipeSyncService,
+                            RecipeImportService recipeImportService,
+                            RecipeExportService recipeExportService,
+                            RecipePatchService recipePatchService,
+                            @Value("${recipe.batch.max-size:1000}") int maxBatchSize,
+                            ObjectProvider<MeterRegistry> meterRegistry) {
         this.recipeRepository = recipeRepository;
+        this.recipeSyncService = recipeSyncService;
+        this.recipeImportService = recipeImportService;
+        this.recipeExportService = recipeExportService;
+        this.recipePatchService = recipePatchService;
+        this.maxBatchSize = maxBatchSize;
+        this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
     }
 
     /**
@@ -27,22 +72,84 @@ public class RecipeController {
      */
     @PostMapping("/batch/recipes")
     public ResponseEntity<List<Recipe>> saveRecipes(@RequestBody List<Recipe> recipes) {
-        List<Recipe> savedRecipes = recipeRepository.saveAll(recipes);
+        checkBatchSize(recipes);
+        List<Recipe> savedRecipes = recordBatch("save", recipes.size(), () -> recipeRepository.saveAll(recipes));
         return new ResponseEntity<>(savedRecipes, HttpStatus.CREATED);
     }
 
+    /**
+     * Endpoint to import a large number of recipes without buffering the request body.
+     * Accepts newline-delimited JSON or a JSON array; recipes are stored in fixed-size chunks,
+     * each committed on its own, so a bad chunk does not roll back the ones before it.
+     * @param body Request body stream
+     * @return Number of recipes imported plus the outcome of every chunk
+     */
+    @PostMapping(value = "/batch/recipes/import", consumes = {"application/x-ndjson", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<RecipeImportResponse> importRecipes(InputStream body) {
+        RecipeImportResponse result = batchTimer("import").record(() -> recipeImportService.importRecipes(body));
+        batchSize("import").record(result.getImported() + result.getFailed());
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
     @PutMapping("/batch/recipes")
     public ResponseEntity<List<Recipe>> updateRecipes(@RequestBody List<Recipe> recipes) {
-        List<Recipe> savedRecipes = recipeRepository.saveAll(recipes);
+        checkBatchSize(recipes);
+        List<Recipe> savedRecipes = recordBatch("update", recipes.size(), () -> recipeRepository.saveAll(recipes));
         return new ResponseEntity<>(savedRecipes, HttpStatus.CREATED);
     }
 
+    /**
+     * Endpoint to change parts of several recipes in one request. Each entry carries a JSON merge
+     * patch or a JSON Patch and the version it was made against; only the columns and ingredient
+     * rows that change are written. If any recipe has been changed since, nothing is stored.
+     * @param patches Recipe id, expected version and patch for each recipe to change
+     * @return The patched recipes with their new versions
+     */
+    @PatchMapping("/batch/recipes")
+    public ResponseEntity<List<Recipe>> patchRecipes(@RequestBody List<RecipePatch> patches) {
+        checkBatchSize(patches);
+        return new ResponseEntity<>(recordBatch("patch", patches.size(), () -> recipePatchService.patch(patches)), HttpStatus.OK);
+    }
+
     @GetMapping("/batch/recipes")
     public ResponseEntity<List<Recipe>> getAllRecipes() {
         List<Recipe> allRecipes = recipeRepository.findAll();
         return new ResponseEntity<>(allRecipes, HttpStatus.OK);
     }
 
+    /**
+     * Endpoint to list every recipe without ingredients, for views that only show names and images
+     * @return Id, name, description, image path and category of every recipe
+     */
+    @GetMapping("/batch/recipes/summaries")
+    public ResponseEntity<List<RecipeSummary>> getRecipeSummaries() {
+        return new ResponseEntity<>(recipeRepository.findAllSummaries(), HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint to export every recipe as a JSON array written straight to the response.
+     * Recipes are streamed from the database, so time to first byte and heap use do not
+     * grow with the size of the catalog.
+     * @return JSON array of all recipes
+     */
+    @GetMapping(value = "/batch/recipes/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportRecipes() {
+        StreamingResponseBody body = recipeExportService::exportAll;
+        return new ResponseEntity<>(body, HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint to list recipes one page at a time using the id of the last recipe seen
+     * @param after Id of the last recipe on the previous page; omit for the first page
+     * @param size Number of recipes per page (at most 500)
+     * @return The page of recipes and the cursor for the next page
+     */
+    @GetMapping("/batch/recipes/page")
+    public ResponseEntity<RecipePage> getRecipePage(@RequestParam(required = false) Long after,
+                                                    @RequestParam(defaultValue = "50") int size) {
+        return new ResponseEntity<>(recipeExportService.page(after, size), HttpStatus.OK);
+    }
+
     /**
      * Endpoint to replace all recipes with a new list (delete existing and save new)
      * @param recipes List of recipes to replace existing ones
@@ -50,10 +157,62 @@ public class RecipeController {
      */
     @PutMapping("/recipes/replace-all")
     public ResponseEntity<List<Recipe>> replaceAllRecipes(@RequestBody List<Recipe> recipes) {
-        // Delete all existing recipes
-        recipeRepository.deleteAll();
-        // Save all new recipes
-        List<Recipe> savedRecipes = recipeRepository.saveAll(recipes);
+        checkBatchSize(recipes);
+        List<Recipe> savedRecipes = recordBatch("replace_all", recipes.size(), () -> {
+            // Delete all existing recipes
+            recipeRepository.deleteAll();
+            // Save all new recipes
+            return recipeRepository.saveAll(recipes);
+        });
         return new ResponseEntity<>(savedRecipes, HttpStatus.OK);
     }
+
+    /**
+     * Endpoint to replace all recipes with a new list by applying only the differences.
+     * Recipes are matched by id and compared by content hash; unchanged ones are not written,
+     * changed ones are updated in place and missing ones are removed with set-based deletes.
+     * @param recipes List of recipes the stored state should match
+     * @return Counts of inserted, updated, deleted and unchanged recipes plus the stored ids
+     */
+    @PutMapping("/recipes/sync")
+    public ResponseEntity<RecipeSyncResponse> syncRecipes(@RequestBody List<Recipe> recipes) {
+        checkBatchSize(recipes);
+        RecipeSyncResponse result = recordBatch("sync", recipes.size(), () -> recipeSyncService.sync(recipes));
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    // Refuses oversized lists before any of them reaches the database
+    private void checkBatchSize(List<?> items) {
+        if (items.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    items.size() + " recipes in one request; at most " + maxBatchSize + " are accepted");
+        }
+    }
+
+    private <T> T recordBatch(String operation, int size, Supplier<T> write) {
+        batchSize(operation).record(size);
+        return batchTimer(operation).record(write);
+    }
+
+    private Timer batchTimer(String operation) {
+        return Timer.builder("recipe.batch.write")
+                .description("Time spent storing a batch, without reading or writing JSON")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary batchSize(String operation) {
+        return DistributionSummary.builder("recipe.batch.size")
+                .description("Recipes per batch request")
+                .baseUnit("recipes")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    // A recipe was changed by someone else between reading and writing it
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleConcurrentUpdate(ObjectOptimisticLockingFailureException e) {
+        return new ResponseEntity<>("Recipe " + e.getIdentifier() + " was changed by someone else; reload it and try again",
+                HttpStatus.CONFLICT);
+    }
 }
@@ -0,0 +1,44 @@
+package com.example.reciperestapi.recipe.controller;
+
+import com.example.reciperestapi.recipe.model.MealCategory;
+import com.example.reciperestapi.recipe.model.RecipeFacetsResponse;
+import com.example.reciperestapi.recipe.service.RecipeCategoryFacets;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/recipes/facets")
+public class RecipeFacetController {
+
+    private final RecipeCategoryFacets recipeCategoryFacets;
+
+    @Autowired
+    public RecipeFacetController(RecipeCategoryFacets recipeCategoryFacets) {
+        this.recipeCategoryFacets = recipeCategoryFacets;
+    }
+
+    /**
+     * Endpoint to list recipes by category together with the number of recipes in every
+     * category, e.g. for a filter sidebar. Counts follow the name filter but not the category
+     * filter, so the other categories still show what selecting them would give.
+     * @param category Categories to list (comma-separated or repeated); omit for every recipe
+     * @param name Text the recipe name must contain, ignoring case; omit for any name
+     * @param after Id of the last recipe on the previous page; omit for the first page
+     * @param size Number of recipes per page (at most 100)
+     * @return Matching recipes in id order, the counts per category and the cursor for the next page
+     */
+    @GetMapping
+    public ResponseEntity<RecipeFacetsResponse> getFacets(@RequestParam(required = false) List<MealCategory> category,
+                                                          @RequestParam(required = false) String name,
+                                                          @RequestParam(required = false) Long after,
+                                                          @RequestParam(defaultValue = "20") int size) {
+        return new ResponseEntity<>(recipeCategoryFacets.find(category, name, after, size), HttpStatus.OK);
+    }
+}
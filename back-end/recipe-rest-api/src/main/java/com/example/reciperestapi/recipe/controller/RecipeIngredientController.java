@@ -0,0 +1,46 @@
+package com.example.reciperestapi.recipe.controller;
+
+import com.example.reciperestapi.recipe.model.RecipesByIngredientsResponse;
+import com.example.reciperestapi.recipe.service.RecipeIngredientIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/recipes/by-ingredients")
+public class RecipeIngredientController {
+
+    private final RecipeIngredientIndex recipeIngredientIndex;
+
+    @Autowired
+    public RecipeIngredientController(RecipeIngredientIndex recipeIngredientIndex) {
+        this.recipeIngredientIndex = recipeIngredientIndex;
+    }
+
+    /**
+     * Endpoint to find recipes by the ingredients they use, e.g. what can be cooked with chicken
+     * and rice but without peanuts. Names are compared in canonical form, so case and plurals
+     * do not matter. Lists are comma-separated or repeated parameters.
+     * @param all Ingredients a recipe must use every one of
+     * @param any Ingredients a recipe must use at least one of
+     * @param none Ingredients a recipe must not use
+     * @param after Id of the last recipe on the previous page; omit for the first page
+     * @param size Number of recipes per page (at most 100)
+     * @return Matching recipes in id order, their total number and the cursor for the next page
+     */
+    @GetMapping
+    public ResponseEntity<RecipesByIngredientsResponse> findByIngredients(
+            @RequestParam(required = false) List<String> all,
+            @RequestParam(required = false) List<String> any,
+            @RequestParam(required = false) List<String> none,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int size) {
+        return new ResponseEntity<>(recipeIngredientIndex.find(all, any, none, after, size), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.reciperestapi.recipe.controller;
+
+import com.example.reciperestapi.recipe.model.RecipeSearchResponse;
+import com.example.reciperestapi.recipe.service.RecipeSearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/search")
+public class RecipeSearchController {
+
+    private final RecipeSearchService recipeSearchService;
+
+    @Autowired
+    public RecipeSearchController(RecipeSearchService recipeSearchService) {
+        this.recipeSearchService = recipeSearchService;
+    }
+
+    /**
+     * Endpoint to search recipes by name, description, category and ingredient names.
+     * Results come from the full-text index, best match first.
+     * @param q Search text; the last word may be incomplete
+     * @param page 0-based page number
+     * @param size Number of hits per page (at most 100)
+     * @return The requested page of hits and the total number of matches
+     */
+    @GetMapping("/recipes")
+    public ResponseEntity<RecipeSearchResponse> searchRecipes(@RequestParam String q,
+                                                              @RequestParam(defaultValue = "0") int page,
+                                                              @RequestParam(defaultValue = "20") int size) {
+        return new ResponseEntity<>(recipeSearchService.search(q, page, size), HttpStatus.OK);
+    }
+}
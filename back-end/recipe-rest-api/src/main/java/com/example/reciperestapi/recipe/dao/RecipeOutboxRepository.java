@@ -0,0 +1,18 @@
+package com.example.reciperestapi.recipe.dao;
+
+import com.example.reciperestapi.recipe.model.RecipeOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import java.util.List;
+
+// Internal queue of the audit log; not part of the REST API
+@RepositoryRestResource(exported = false)
+public interface RecipeOutboxRepository extends JpaRepository<RecipeOutboxEvent, Long> {
+
+    // Oldest pending events first, one batch at a time
+    List<RecipeOutboxEvent> findByOrderByIdAsc(Pageable pageable);
+
+    List<RecipeOutboxEvent> findByRecipeIdOrderByIdAsc(Long recipeId);
+}
@@ -1,22 +1,110 @@
 package com.example.reciperestapi.recipe.dao;
 
 import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.recipe.model.RecipeSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 
 
 import org.springframework.web.bind.annotation.CrossOrigin;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 @CrossOrigin("http://localhost:4200")
 @RepositoryRestResource(collectionResourceRel = "recipes", path = "recipes")
 public interface RecipeRepository extends JpaRepository<Recipe, Long> {
     // You get basic CRUD operations by default
     // Additional custom queries can be added here
 
+    // Unpaged reads return every ingredient anyway, so fetch them in the same query.
+    // Paged reads (the /api/recipes collection) rely on @BatchSize instead, because a
+    // collection fetch join would make Hibernate paginate in memory.
+    // Query results are cached and dropped whenever any recipe or ingredient is written
+    @Override
+    @EntityGraph(Recipe.WITH_INGREDIENTS)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Recipe> findAll();
+
+    @Override
+    @EntityGraph(Recipe.WITH_INGREDIENTS)
+    Optional<Recipe> findById(Long id);
+
     // Find recipes by name containing the given string (case-insensitive)
+    @EntityGraph(Recipe.WITH_INGREDIENTS)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Recipe> findByNameContainingIgnoreCase(String name);
 
     // Find recipes by description containing the given string (case-insensitive)
+    @EntityGraph(Recipe.WITH_INGREDIENTS)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Recipe> findByDescriptionContainingIgnoreCase(String description);
-}
\ No newline at end of file
+
+    // Recipe columns only, for list views that do not show ingredients
+    @RestResource(exported = false)
+    @Query("select r.id as id, r.name as name, r.description as description, r.imagePath as imagePath, "
+            + "r.category as category from Recipe r order by r.id")
+    List<RecipeSummary> findAllSummaries();
+
+    // Ids of every stored recipe, without loading the entities
+    @RestResource(exported = false)
+    @Query("select r.id from Recipe r")
+    List<Long> findAllIds();
+
+    // Recipes with the given ids, ingredients fetched in the same query.
+    // Used by sync and the search indexer, which should not fill the second-level cache with what they read
+    @RestResource(exported = false)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE"))
+    @Query("select distinct r from Recipe r left join fetch r.ingredients where r.id in :ids")
+    List<Recipe> findAllWithIngredientsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Every recipe in id order, fetched from the database in rows of 500; must be consumed inside a transaction.
+    // Full scans bypass the second-level cache so an export does not evict the recipes people are reading
+    @RestResource(exported = false)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("select r from Recipe r order by r.id")
+    Stream<Recipe> streamAll();
+
+    // Keyset pagination: the page of recipes following the given id
+    @RestResource(exported = false)
+    List<Recipe> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Recipes written after the given change sequence number, oldest first; ingredients come in through @BatchSize
+    @RestResource(exported = false)
+    @Query("select r from Recipe r where r.changeSeq > :since and r.changeSeq <= :upTo order by r.changeSeq")
+    List<Recipe> findChangedBetween(@Param("since") long since, @Param("upTo") long upTo, Pageable pageable);
+
+    // Sum of the change sequence numbers of the current owner's recipes and tombstones, in one statement
+    // that only reads the two (owner_id, change_seq) indexes
+    @RestResource(exported = false)
+    @Query("select (select coalesce(sum(r.changeSeq), 0) from Recipe r) "
+            + "+ (select coalesce(sum(t.changeSeq), 0) from RecipeTombstone t)")
+    long sumChangeSeq();
+
+    // Set-based deletes used by the sync endpoint; ingredients first because of the recipe_id foreign key.
+    // Naming the table lets Hibernate evict just the ingredient caches instead of every cache region
+    @RestResource(exported = false)
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "ingredient"))
+    @Query(value = "delete from ingredient where recipe_id in (:ids)", nativeQuery = true)
+    int deleteIngredientsByRecipeIdIn(@Param("ids") Collection<Long> ids);
+
+    @RestResource(exported = false)
+    @Modifying
+    @Query("delete from Recipe r where r.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,19 @@
+package com.example.reciperestapi.recipe.dao;
+
+import com.example.reciperestapi.recipe.model.RecipeTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import java.util.List;
+
+// Deleted recipes for delta sync; served through /api/recipes/changes, not as a resource of its own
+@RepositoryRestResource(exported = false)
+public interface RecipeTombstoneRepository extends JpaRepository<RecipeTombstone, Long> {
+
+    // Deletes after the given sequence number, oldest first
+    @Query("select t from RecipeTombstone t where t.changeSeq > :since and t.changeSeq <= :upTo order by t.changeSeq")
+    List<RecipeTombstone> findChangedBetween(@Param("since") long since, @Param("upTo") long upTo, Pageable pageable);
+}
@@ -0,0 +1,73 @@
+package com.example.reciperestapi.recipe.event;
+
+import com.example.reciperestapi.recipe.model.Ingredient;
+import com.example.reciperestapi.recipe.model.Recipe;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.FlushEntityEvent;
+import org.hibernate.event.spi.FlushEntityEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+/**
+ * Treats an edit to an ingredient row as an edit to the recipe that owns it. Hibernate only
+ * raises a recipe's {@code @Version} when the recipe's columns or the membership of its
+ * ingredient list change; renaming an ingredient in place would otherwise leave the recipe's
+ * version, its cache entry and its ETag untouched.
+ *
+ * Runs before Hibernate's own flush handling of each recipe and marks the ingredient list
+ * dirty when one of its loaded ingredients is. Hibernate then increments the version as for
+ * any other collection change, which also raises a collection event for
+ * {@link RecipeChangeTracker}. No extra statements are issued for the list itself.
+ */
+@Component
+@RequiredArgsConstructor
+public class IngredientEditListener implements FlushEntityEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    void registerListener() {
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .prependListeners(EventType.FLUSH_ENTITY, this);
+    }
+
+    @Override
+    public void onFlushEntity(FlushEntityEvent event) {
+        if (!(event.getEntity() instanceof Recipe recipe)
+                || event.getEntityEntry().getStatus() != Status.MANAGED
+                || !(recipe.getIngredients() instanceof PersistentCollection<?> ingredients)
+                || !Hibernate.isInitialized(ingredients)
+                || ingredients.isDirty()) {
+            return;
+        }
+        SessionImplementor session = event.getSession();
+        for (Ingredient ingredient : recipe.getIngredients()) {
+            if (isDirty(ingredient, session)) {
+                ingredients.dirty();
+                return;
+            }
+        }
+    }
+
+    static boolean isDirty(Ingredient ingredient, SessionImplementor session) {
+        EntityEntry entry = session.getPersistenceContextInternal().getEntry(ingredient);
+        // New ingredients change the list itself; read-only ones keep no snapshot to compare with
+        if (entry == null || entry.getStatus() != Status.MANAGED || entry.getLoadedState() == null) {
+            return false;
+        }
+        EntityPersister persister = entry.getPersister();
+        return persister.findDirty(persister.getValues(ingredient), entry.getLoadedState(), ingredient, session) != null;
+    }
+}
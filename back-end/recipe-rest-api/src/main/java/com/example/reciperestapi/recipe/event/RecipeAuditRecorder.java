@@ -0,0 +1,347 @@
+package com.example.reciperestapi.recipe.event;
+
+import com.example.reciperestapi.recipe.config.RecipeOwnerResolver;
+import com.example.reciperestapi.recipe.model.Ingredient;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Writes what each transaction changed about recipes and their ingredients to the
+ * {@code recipe_outbox} table, in the same transaction, so the audit log can never disagree with
+ * the data. Changes are collected from Hibernate's entity and collection events while the
+ * transaction runs and inserted in one JDBC batch right before it commits; rolled back
+ * transactions leave no rows. Appending the rows to the audit log happens later, off the request
+ * thread, in {@code RecipeAuditService}.
+ *
+ * Each recipe touched by a transaction gets one row:
+ * <ul>
+ *   <li>created: the recipe as committed, with its ingredients</li>
+ *   <li>updated: {@code {"name": {"from": ..., "to": ...}}} per changed column, plus
+ *       {@code "ingredients": {"added": [...], "removed": [...], "changed": [...]}}</li>
+ *   <li>deleted: the name the recipe had</li>
+ * </ul>
+ *
+ * Like {@link RecipeChangeTracker}, bulk JPQL or native deletes bypass these events; code that
+ * issues them must call {@link #recordDeleted} itself.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecipeAuditRecorder implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, PostCollectionRecreateEventListener, PostCollectionUpdateEventListener {
+
+    private static final String INSERT_SQL =
+            "insert into recipe_outbox (recipe_id, owner_id, type, actor, occurred_at, changes) values (?, ?, ?, ?, ?, ?)";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectMapper objectMapper;
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+    }
+
+    /**
+     * Records recipes removed with a bulk delete in the current transaction.
+     */
+    public void recordDeleted(Collection<Long> recipeIds) {
+        EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        if (entityManager == null) {
+            return;
+        }
+        PendingChanges pending = pendingChanges(entityManager.unwrap(SessionImplementor.class));
+        // The bulk statement only reached recipes of the session's owner
+        Long ownerId = RecipeOwnerResolver.currentOwner();
+        recipeIds.forEach(id -> pending.change(id, ownerId).deleted(null));
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Recipe recipe) {
+            // Described when the transaction commits, so later changes in the same transaction are included
+            pendingChanges(event.getSession()).change(recipe.getId(), recipe.getOwnerId()).created(recipe);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getOldState() == null) {
+            return;
+        }
+        if (event.getEntity() instanceof Recipe recipe) {
+            ObjectNode fields = pendingChanges(event.getSession()).change(recipe.getId(), recipe.getOwnerId()).fields;
+            diff(event.getPersister(), event.getOldState(), event.getState(), fields);
+        } else if (event.getEntity() instanceof Ingredient ingredient) {
+            // The owning recipe is not known here; its ingredient list is flushed next and claims the edit
+            ObjectNode edit = pendingChanges(event.getSession()).ingredientEdits
+                    .computeIfAbsent(ingredient.getId(), id -> objectMapper.createObjectNode().put("id", id));
+            diff(event.getPersister(), event.getOldState(), event.getState(), edit);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Recipe recipe) {
+            pendingChanges(event.getSession()).change((Long) event.getId(), recipe.getOwnerId()).deleted(recipe.getName());
+        }
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        if (event.getAffectedOwnerOrNull() instanceof Recipe recipe) {
+            RecipeAuditChange change = pendingChanges(event.getSession()).change(recipe.getId(), recipe.getOwnerId());
+            if (change.type != RecipeChange.Type.CREATED) {
+                // The list was swapped for a new one; the old ingredients are deleted as orphans
+                change.ingredients().set("replacedWith", ingredients(recipe.getIngredients()));
+            }
+        }
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        if (!(event.getAffectedOwnerOrNull() instanceof Recipe recipe)) {
+            return;
+        }
+        PendingChanges pending = pendingChanges(event.getSession());
+        RecipeAuditChange change = pending.change(recipe.getId(), recipe.getOwnerId());
+        // The snapshot still holds the list as loaded; it is reset once the whole flush is done
+        Map<Long, Ingredient> before = new LinkedHashMap<>();
+        if (event.getCollection().getStoredSnapshot() instanceof Collection<?> snapshot) {
+            snapshot.forEach(element -> {
+                if (element instanceof Ingredient ingredient) {
+                    before.put(ingredient.getId(), ingredient);
+                }
+            });
+        }
+        Set<Long> after = new LinkedHashSet<>();
+        for (Ingredient ingredient : recipe.getIngredients()) {
+            after.add(ingredient.getId());
+            if (!before.containsKey(ingredient.getId())) {
+                change.ingredients().withArray("added").add(objectMapper.valueToTree(ingredient));
+            }
+            ObjectNode edit = pending.ingredientEdits.remove(ingredient.getId());
+            if (edit != null) {
+                change.ingredients().withArray("changed").add(edit);
+            }
+        }
+        before.forEach((id, ingredient) -> {
+            if (!after.contains(id)) {
+                change.ingredients().withArray("removed").add(objectMapper.valueToTree(ingredient));
+            }
+        });
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    // Adds {"property": {"from": old, "to": new}} for every changed column, keeping the first "from" over several flushes
+    private void diff(EntityPersister persister, Object[] oldState, Object[] state, ObjectNode target) {
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        for (int i = 0; i < names.length; i++) {
+            // Names starting with "_" are Hibernate's own, such as the back-reference filling ingredient.recipe_id;
+            // columns that are never updated, such as the owner, cannot have changed
+            if (i == persister.getVersionProperty() || types[i].isCollectionType() || names[i].startsWith("_")
+                    || !persister.getPropertyUpdateability()[i]
+                    || names[i].equals(RecipeChangeSequence.PROPERTY)
+                    || Objects.equals(oldState[i], state[i])) {
+                continue;
+            }
+            JsonNode previous = target.get(names[i]);
+            ObjectNode delta = objectMapper.createObjectNode();
+            delta.set("from", previous != null ? previous.get("from") : objectMapper.valueToTree(oldState[i]));
+            delta.set("to", objectMapper.valueToTree(state[i]));
+            target.set(names[i], delta);
+        }
+    }
+
+    private ArrayNode ingredients(List<Ingredient> ingredients) {
+        ArrayNode array = objectMapper.createArrayNode();
+        if (ingredients != null) {
+            ingredients.forEach(ingredient -> array.add(objectMapper.valueToTree(ingredient)));
+        }
+        return array;
+    }
+
+    private PendingChanges pendingChanges(SessionImplementor session) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingChanges pending = new PendingChanges(actor());
+            session.getActionQueue().registerProcess(pending);
+            return pending;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges(actor());
+            session.getActionQueue().registerProcess(pending);
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RecipeAuditRecorder.this);
+                }
+            });
+        }
+        return pending;
+    }
+
+    private static String actor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    /**
+     * Changes of one transaction. Runs after Hibernate's final flush and before the commit, on
+     * the transaction's own connection.
+     */
+    private class PendingChanges implements BeforeTransactionCompletionProcess {
+
+        private final String actor;
+        private final Map<Long, RecipeAuditChange> changes = new LinkedHashMap<>();
+        // Ingredient edits not yet claimed by the recipe that owns them, by ingredient id
+        private final Map<Long, ObjectNode> ingredientEdits = new HashMap<>();
+
+        PendingChanges(String actor) {
+            this.actor = actor;
+        }
+
+        RecipeAuditChange change(Long recipeId, Long ownerId) {
+            RecipeAuditChange change = changes.computeIfAbsent(recipeId, id -> new RecipeAuditChange());
+            if (ownerId != null) {
+                change.ownerId = ownerId;
+            }
+            return change;
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            Map<Long, JsonNode> rows = new LinkedHashMap<>();
+            changes.forEach((recipeId, change) -> {
+                JsonNode described = change.describe();
+                if (described != null) {
+                    rows.put(recipeId, described);
+                }
+            });
+            if (rows.isEmpty()) {
+                return;
+            }
+            Timestamp occurredAt = Timestamp.from(Instant.now());
+            session.doWork(connection -> {
+                try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+                    for (Map.Entry<Long, JsonNode> row : rows.entrySet()) {
+                        RecipeAuditChange change = changes.get(row.getKey());
+                        insert.setLong(1, row.getKey());
+                        insert.setObject(2, change.ownerId, Types.BIGINT);
+                        insert.setString(3, change.type.name());
+                        insert.setString(4, actor);
+                        insert.setTimestamp(5, occurredAt);
+                        insert.setString(6, row.getValue().toString());
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+            });
+        }
+    }
+
+    private class RecipeAuditChange {
+
+        private RecipeChange.Type type = RecipeChange.Type.UPDATED;
+        private Long ownerId;
+        private Recipe created;
+        private String deletedName;
+        private final ObjectNode fields = objectMapper.createObjectNode();
+        private ObjectNode ingredients;
+
+        void created(Recipe recipe) {
+            type = RecipeChange.Type.CREATED;
+            created = recipe;
+        }
+
+        void deleted(String name) {
+            type = RecipeChange.Type.DELETED;
+            if (name != null) {
+                deletedName = name;
+            }
+        }
+
+        ObjectNode ingredients() {
+            if (ingredients == null) {
+                ingredients = objectMapper.createObjectNode();
+            }
+            return ingredients;
+        }
+
+        // Null when nothing worth recording changed, e.g. only the version moved
+        JsonNode describe() {
+            switch (type) {
+                case CREATED -> {
+                    ObjectNode recipe = objectMapper.valueToTree(created);
+                    recipe.remove("version");
+                    recipe.remove(RecipeChangeSequence.PROPERTY);
+                    return recipe;
+                }
+                case DELETED -> {
+                    return objectMapper.createObjectNode().put("name", deletedName);
+                }
+                default -> {
+                    ObjectNode delta = fields.deepCopy();
+                    if (ingredients != null && !ingredients.isEmpty()) {
+                        delta.set("ingredients", ingredients);
+                    }
+                    return delta.isEmpty() ? null : delta;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.reciperestapi.recipe.event;
+
+import com.example.reciperestapi.recipe.model.MealCategory;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Value;
+
+/**
+ * One recipe touched by a committed transaction.
+ */
+@Value
+public class RecipeChange {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    Long recipeId;
+    Type type;
+    Long version;   // Recipe version once committed; null for deletions and bulk writes
+    @JsonIgnore
+    Long ownerId;   // Id of the user the recipe belongs to; not sent to clients
+    @JsonIgnore
+    MealCategory category;  // Category once committed, for in-memory aggregates; null for deletions
+    @JsonIgnore
+    String name;    // Name once committed, for in-memory aggregates; null for deletions
+}
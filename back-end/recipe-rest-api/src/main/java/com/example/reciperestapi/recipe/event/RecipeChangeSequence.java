@@ -0,0 +1,263 @@
+package com.example.reciperestapi.recipe.event;
+
+import com.example.reciperestapi.recipe.config.RecipeOwnerResolver;
+import com.example.reciperestapi.recipe.model.Ingredient;
+import com.example.reciperestapi.recipe.model.Recipe;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.FlushEntityEvent;
+import org.hibernate.event.spi.FlushEntityEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PreInsertEvent;
+import org.hibernate.event.spi.PreInsertEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Numbers every recipe write for delta sync. Each inserted recipe, and each recipe whose columns,
+ * ingredient list or single ingredients change, gets the next number in {@code change_seq};
+ * each deleted recipe gets a {@code recipe_tombstone} row with the next number instead. A client
+ * that remembers the highest number it has seen can then ask for just what came after it.
+ *
+ * The number is set on the recipe before Hibernate works out what to flush, so it goes into the
+ * UPDATE or INSERT that is issued anyway. Tombstones are inserted in one JDBC batch right before
+ * the transaction commits, as {@link RecipeAuditRecorder} does with its rows.
+ *
+ * Numbers are handed out in memory, continuing from the highest one stored when the application
+ * starts, which assumes a single instance writes to the database. They are taken at flush time
+ * but become visible at commit, so transactions can commit out of order; {@link #watermark}
+ * tells readers up to where no number can still appear.
+ *
+ * Like {@link RecipeChangeTracker}, bulk JPQL or native deletes bypass these events; code that
+ * issues them must call {@link #recordDeleted} itself.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecipeChangeSequence implements FlushEntityEventListener, PreInsertEventListener, PostDeleteEventListener {
+
+    static final String PROPERTY = "changeSeq";
+
+    private static final String INSERT_TOMBSTONE_SQL = "insert into recipe_tombstone (recipe_id, owner_id, change_seq) values (?, ?, ?)";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    // Numbers taken by transactions that have not completed yet; guarded by this
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+
+    // Last number handed out; guarded by this
+    private long last;
+
+    @PostConstruct
+    void initialize() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            // Recipes stored before the column existed; offsetting their ids keeps the numbers unique
+            entityManager.createQuery("update Recipe r set r.changeSeq = r.id + :offset where r.changeSeq is null")
+                    .setParameter("offset", highestStored(entityManager))
+                    .executeUpdate();
+            last = highestStored(entityManager);
+            entityManager.getTransaction().commit();
+        } finally {
+            entityManager.close();
+        }
+
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.prependListeners(EventType.FLUSH_ENTITY, this);
+        registry.appendListeners(EventType.PRE_INSERT, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    /**
+     * Highest number whose write has either committed or rolled back, so that every change up to
+     * it can be read now and no number at or below it will show up later.
+     */
+    public synchronized long watermark() {
+        return inFlight.isEmpty() ? last : inFlight.first() - 1;
+    }
+
+    /**
+     * Records recipes removed with a bulk delete in the current transaction. They are taken to
+     * belong to the current owner, whose session issued the delete.
+     */
+    public void recordDeleted(Collection<Long> recipeIds) {
+        EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        if (entityManager == null) {
+            return;
+        }
+        PendingTombstones pending = pendingTombstones(entityManager.unwrap(SessionImplementor.class));
+        Long ownerId = RecipeOwnerResolver.currentOwner();
+        recipeIds.forEach(id -> pending.tombstones.put(id, new Tombstone(ownerId, next())));
+    }
+
+    @Override
+    public void onFlushEntity(FlushEntityEvent event) {
+        EntityEntry entry = event.getEntityEntry();
+        if (event.getEntity() instanceof Recipe recipe
+                && entry.getStatus() == Status.MANAGED
+                && entry.getLoadedState() != null
+                && isChanged(recipe, entry, event.getSession())) {
+            recipe.setChangeSeq(next());
+        }
+    }
+
+    @Override
+    public boolean onPreInsert(PreInsertEvent event) {
+        if (event.getEntity() instanceof Recipe recipe) {
+            long sequence = next();
+            recipe.setChangeSeq(sequence);
+            // The INSERT is built from the state, which was copied from the recipe before this event
+            event.getState()[event.getPersister().getEntityMetamodel().getPropertyIndex(PROPERTY)] = sequence;
+        }
+        return false;
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Recipe recipe) {
+            pendingTombstones(event.getSession()).tombstones.put((Long) event.getId(), new Tombstone(recipe.getOwnerId(), next()));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private long next() {
+        long sequence;
+        synchronized (this) {
+            sequence = ++last;
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                // Flushed and committed right away
+                return sequence;
+            }
+            inFlight.add(sequence);
+        }
+        currentTransaction().taken.add(sequence);
+        return sequence;
+    }
+
+    private PendingTombstones pendingTombstones(SessionImplementor session) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingTombstones pending = new PendingTombstones();
+            session.getActionQueue().registerProcess(pending);
+            return pending;
+        }
+        TransactionSequences transaction = currentTransaction();
+        if (transaction.tombstones == null) {
+            transaction.tombstones = new PendingTombstones();
+            session.getActionQueue().registerProcess(transaction.tombstones);
+        }
+        return transaction.tombstones;
+    }
+
+    private TransactionSequences currentTransaction() {
+        TransactionSequences transaction = (TransactionSequences) TransactionSynchronizationManager.getResource(this);
+        if (transaction == null) {
+            TransactionSequences created = new TransactionSequences();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RecipeChangeSequence.this);
+                    // Committed or rolled back, the numbers no longer hold back the watermark
+                    synchronized (RecipeChangeSequence.this) {
+                        created.taken.forEach(inFlight::remove);
+                    }
+                }
+            });
+            transaction = created;
+        }
+        return transaction;
+    }
+
+    // Whether the flush will write the recipe, counting edits to its ingredients as IngredientEditListener does
+    private static boolean isChanged(Recipe recipe, EntityEntry entry, SessionImplementor session) {
+        EntityPersister persister = entry.getPersister();
+        // Also catches an ingredient list swapped for a new one
+        if (persister.findDirty(persister.getValues(recipe), entry.getLoadedState(), recipe, session) != null) {
+            return true;
+        }
+        if (!(recipe.getIngredients() instanceof PersistentCollection<?> ingredients)
+                || !Hibernate.isInitialized(ingredients)) {
+            return false;
+        }
+        if (ingredients.isDirty()) {
+            return true;
+        }
+        for (Ingredient ingredient : recipe.getIngredients()) {
+            if (IngredientEditListener.isDirty(ingredient, session)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long highestStored(EntityManager entityManager) {
+        Long recipes = entityManager.createQuery("select max(r.changeSeq) from Recipe r", Long.class).getSingleResult();
+        Long tombstones = entityManager.createQuery("select max(t.changeSeq) from RecipeTombstone t", Long.class).getSingleResult();
+        return Math.max(recipes == null ? 0 : recipes, tombstones == null ? 0 : tombstones);
+    }
+
+    private record Tombstone(Long ownerId, long changeSeq) {
+    }
+
+    private static class TransactionSequences {
+        private final List<Long> taken = new ArrayList<>();
+        private PendingTombstones tombstones;
+    }
+
+    /**
+     * Tombstones of one transaction, by recipe id. Runs after Hibernate's final flush and before
+     * the commit, on the transaction's own connection.
+     */
+    private static class PendingTombstones implements BeforeTransactionCompletionProcess {
+
+        private final Map<Long, Tombstone> tombstones = new LinkedHashMap<>();
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            if (tombstones.isEmpty()) {
+                return;
+            }
+            session.doWork(connection -> {
+                try (PreparedStatement insert = connection.prepareStatement(INSERT_TOMBSTONE_SQL)) {
+                    for (Map.Entry<Long, Tombstone> tombstone : tombstones.entrySet()) {
+                        insert.setLong(1, tombstone.getKey());
+                        insert.setObject(2, tombstone.getValue().ownerId(), Types.BIGINT);
+                        insert.setLong(3, tombstone.getValue().changeSeq());
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+            });
+        }
+    }
+}
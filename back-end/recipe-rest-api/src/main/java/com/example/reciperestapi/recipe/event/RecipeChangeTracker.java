@@ -0,0 +1,162 @@
+package com.example.reciperestapi.recipe.event;
+
+import com.example.reciperestapi.recipe.config.RecipeOwnerResolver;
+import com.example.reciperestapi.recipe.model.Recipe;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Captures every recipe write that goes through Hibernate, whether it comes from
+ * {@code RecipeController}, a service or the Spring Data REST resource, and publishes a single
+ * {@link RecipeChangesCommittedEvent} once the transaction has committed. Rolled back
+ * transactions publish nothing.
+ *
+ * Bulk JPQL or native statements bypass Hibernate's entity events; code that issues them must
+ * call {@link #record} itself.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecipeChangeTracker implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, PostCollectionRecreateEventListener, PostCollectionUpdateEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+    }
+
+    /**
+     * Records a change to be published after the current transaction commits, or right away
+     * when no transaction is active. The recipe is taken to belong to the current owner, whose
+     * session issued the bulk statement. Its category and name are not known here, so this is
+     * meant for deletions.
+     */
+    public void record(Long recipeId, RecipeChange.Type type) {
+        record(new RecipeChange(recipeId, type, null, RecipeOwnerResolver.currentOwner(), null, null));
+    }
+
+    public void record(Collection<Long> recipeIds, RecipeChange.Type type) {
+        recipeIds.forEach(id -> record(id, type));
+    }
+
+    private void record(RecipeChange change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eventPublisher.publishEvent(new RecipeChangesCommittedEvent(List.of(change)));
+            return;
+        }
+        pendingChanges().merge(change.getRecipeId(), change, RecipeChangeTracker::combine);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Recipe recipe) {
+            record(new RecipeChange(recipe.getId(), RecipeChange.Type.CREATED, recipe.getVersion(), recipe.getOwnerId(),
+                    recipe.getCategory(), recipe.getName()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Recipe recipe) {
+            record(new RecipeChange(recipe.getId(), RecipeChange.Type.UPDATED, recipe.getVersion(), recipe.getOwnerId(),
+                    recipe.getCategory(), recipe.getName()));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Recipe recipe) {
+            record(new RecipeChange((Long) event.getId(), RecipeChange.Type.DELETED, null, recipe.getOwnerId(), null, null));
+        }
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        if (event.getAffectedOwnerOrNull() instanceof Recipe recipe) {
+            record(new RecipeChange(recipe.getId(), RecipeChange.Type.UPDATED, recipe.getVersion(), recipe.getOwnerId(),
+                    recipe.getCategory(), recipe.getName()));
+        }
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        if (event.getAffectedOwnerOrNull() instanceof Recipe recipe) {
+            // Runs after the recipe's own update in the same flush, so the version is already the new one
+            record(new RecipeChange(recipe.getId(), RecipeChange.Type.UPDATED, recipe.getVersion(), recipe.getOwnerId(),
+                    recipe.getCategory(), recipe.getName()));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, RecipeChange> pendingChanges() {
+        Map<Long, RecipeChange> pending = (Map<Long, RecipeChange>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<Long, RecipeChange> changes = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eventPublisher.publishEvent(new RecipeChangesCommittedEvent(new ArrayList<>(changes.values())));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RecipeChangeTracker.this);
+                }
+            });
+            pending = changes;
+        }
+        return pending;
+    }
+
+    // A recipe created in the transaction stays "created"; a deleted one stays "deleted".
+    // The version, category and name are the last ones written
+    private static RecipeChange combine(RecipeChange previous, RecipeChange next) {
+        Long version = next.getVersion() != null ? next.getVersion() : previous.getVersion();
+        Long ownerId = next.getOwnerId() != null ? next.getOwnerId() : previous.getOwnerId();
+        if (next.getType() == RecipeChange.Type.DELETED || previous.getType() == RecipeChange.Type.DELETED) {
+            return new RecipeChange(next.getRecipeId(), RecipeChange.Type.DELETED, null, ownerId, null, null);
+        }
+        RecipeChange.Type type = previous.getType() == RecipeChange.Type.CREATED ? previous.getType() : next.getType();
+        return new RecipeChange(next.getRecipeId(), type, version, ownerId, next.getCategory(), next.getName());
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.reciperestapi.recipe.event;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Published once per committed transaction that created, updated or deleted recipes.
+ * Each recipe appears at most once.
+ */
+@Value
+public class RecipeChangesCommittedEvent {
+    List<RecipeChange> changes;
+}
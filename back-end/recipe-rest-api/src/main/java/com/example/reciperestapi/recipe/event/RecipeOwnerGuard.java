@@ -0,0 +1,140 @@
+package com.example.reciperestapi.recipe.event;
+
+import com.example.reciperestapi.recipe.config.RecipeOwnerResolver;
+import com.example.reciperestapi.recipe.model.Ingredient;
+import com.example.reciperestapi.recipe.model.Recipe;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.FlushEntityEvent;
+import org.hibernate.event.spi.FlushEntityEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.hibernate.event.spi.MergeContext;
+import org.hibernate.event.spi.MergeEvent;
+import org.hibernate.event.spi.MergeEventListener;
+import org.hibernate.event.spi.PersistContext;
+import org.hibernate.event.spi.PersistEvent;
+import org.hibernate.event.spi.PersistEventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps other users' recipes out of reach of lookups by id. Hibernate restricts every query to
+ * the session's owner (see {@link RecipeOwnerResolver}), but loading a single entity by id, as
+ * {@code findById}, {@code deleteById} and merging a client-sent recipe do, is not filtered. A
+ * recipe loaded that way for another owner is evicted again and reported as not found: it reads
+ * as 404, is not deleted, and a merge treats the client's recipe as new instead of copying it
+ * over someone else's.
+ *
+ * Ingredients have no owner of their own. Before a client-sent recipe is merged, ingredient ids
+ * that are not in the stored recipe's own list are cleared, so those ingredients are inserted as
+ * new rows instead of being loaded by id and copied over, whichever recipe they belong to. A new
+ * recipe has no ingredients yet, so all of its ingredient ids are cleared before it is persisted.
+ *
+ * Also keeps a merged recipe's owner. Clients never send it, so a merge copies {@code null} over
+ * the loaded value; the column is never updated, but the cached copy would lose it.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecipeOwnerGuard implements LoadEventListener, FlushEntityEventListener, MergeEventListener, PersistEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        // After Hibernate's own listener, which does the loading
+        registry.appendListeners(EventType.LOAD, this);
+        registry.prependListeners(EventType.FLUSH_ENTITY, this);
+        // Before Hibernate's own listeners, which cascade to the ingredients
+        registry.prependListeners(EventType.MERGE, this);
+        registry.prependListeners(EventType.PERSIST, this);
+    }
+
+    @Override
+    public void onLoad(LoadEvent event, LoadType loadType) {
+        // Uninitialized proxies are checked when they are loaded
+        if (event.getResult() instanceof Recipe recipe
+                && Hibernate.isInitialized(recipe)
+                && !isVisible(recipe, event.getSession())) {
+            event.getSession().evict(recipe);
+            event.setResult(null);
+        }
+    }
+
+    @Override
+    public void onFlushEntity(FlushEntityEvent event) {
+        EntityEntry entry = event.getEntityEntry();
+        if (!(event.getEntity() instanceof Recipe recipe)
+                || entry.getStatus() != Status.MANAGED
+                || entry.getLoadedState() == null) {
+            return;
+        }
+        Object loadedOwner = entry.getLoadedState()[entry.getPersister().getEntityMetamodel().getPropertyIndex("ownerId")];
+        if (!Objects.equals(recipe.getOwnerId(), loadedOwner)) {
+            recipe.setOwnerId((Long) loadedOwner);
+        }
+    }
+
+    @Override
+    public void onMerge(MergeEvent event) {
+        forgetForeignIngredients(event.getOriginal(), event.getSession(), true);
+    }
+
+    @Override
+    public void onMerge(MergeEvent event, MergeContext copiedAlready) {
+        forgetForeignIngredients(event.getOriginal(), event.getSession(), true);
+    }
+
+    @Override
+    public void onPersist(PersistEvent event) {
+        forgetForeignIngredients(event.getObject(), event.getSession(), false);
+    }
+
+    @Override
+    public void onPersist(PersistEvent event, PersistContext createdAlready) {
+        forgetForeignIngredients(event.getObject(), event.getSession(), false);
+    }
+
+    private static void forgetForeignIngredients(Object entity, EventSource session, boolean merging) {
+        if (!(entity instanceof Recipe recipe)
+                || !Hibernate.isInitialized(recipe)
+                || recipe.getIngredients() == null
+                || session.contains(recipe)) {
+            return;
+        }
+        Set<Long> own = merging && recipe.getId() != null ? storedIngredientIds(recipe.getId(), session) : Set.of();
+        for (Ingredient ingredient : recipe.getIngredients()) {
+            if (ingredient.getId() != null && !own.contains(ingredient.getId())) {
+                ingredient.setId(null);
+            }
+        }
+    }
+
+    private static Set<Long> storedIngredientIds(Long recipeId, EventSource session) {
+        // Loaded through onLoad, so another owner's recipe comes back as null and keeps no ingredient ids
+        Recipe stored = session.get(Recipe.class, recipeId);
+        return stored == null || stored.getIngredients() == null
+                ? Set.of()
+                : stored.getIngredients().stream().map(Ingredient::getId).collect(Collectors.toSet());
+    }
+
+    private static boolean isVisible(Recipe recipe, SharedSessionContractImplementor session) {
+        Object owner = session.getTenantIdentifierValue();
+        return RecipeOwnerResolver.ALL_OWNERS.equals(owner) || Objects.equals(owner, recipe.getOwnerId());
+    }
+}
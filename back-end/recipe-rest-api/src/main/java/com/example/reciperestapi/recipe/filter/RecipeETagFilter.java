@@ -0,0 +1,98 @@
+package com.example.reciperestapi.recipe.filter;
+
+import com.example.reciperestapi.recipe.service.RecipeCollectionVersion;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Conditional GETs for recipe reads. Recipe lists carry the ETag of the signed-in user's
+ * collection from {@link RecipeCollectionVersion}, which costs one index-only query. A request
+ * whose {@code If-None-Match} still matches is answered with 304 here, before any controller runs,
+ * so no recipe is loaded or serialized.
+ *
+ * Single recipes ({@code /api/recipes/{id}}) are left to Spring Data REST, which derives their
+ * ETag from {@code Recipe.version} and answers 304 from the second-level cache.
+ *
+ * Matching responses are marked {@code no-cache} instead of Spring Security's {@code no-store},
+ * so browsers keep them and revalidate on every use.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecipeETagFilter extends OncePerRequestFilter {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    // Every representation that depends on the whole recipe table. Not /api/recipes/by-ingredients:
+    // its index catches up on a background thread after the version has been raised
+    private static final List<String> COLLECTION_PATHS = List.of(
+            "/api/batch/recipes",
+            "/api/batch/recipes/summaries",
+            "/api/recipes",
+            "/api/recipes/changes",
+            "/api/recipes/facets",
+            "/api/recipes/search/*");
+
+    // Answered from counts held in memory by each instance
+    private static final String FACETS_PATH = "/api/recipes/facets";
+
+    private static final String ITEM_PATH = "/api/recipes/{id:\\d+}";
+
+    private static final String SMILE = "application/x-jackson-smile";
+
+    private final RecipeCollectionVersion recipeCollectionVersion;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+        String path = path(request);
+        return !isCollection(path) && !PATH_MATCHER.match(ITEM_PATH, path);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+
+        String path = path(request);
+        if (isCollection(path)) {
+            // Runs after Spring Security, so the user is known
+            // Read before the request runs: a write committing meanwhile can only make the ETag older than the body
+            String etag = FACETS_PATH.equals(path) ? recipeCollectionVersion.inMemoryEtag() : recipeCollectionVersion.etag();
+            // JSON and Smile bodies of the same list are different representations
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            String accept = request.getHeader(HttpHeaders.ACCEPT);
+            if (accept != null && accept.contains(SMILE)) {
+                etag = etag.substring(0, etag.length() - 1) + "-smile\"";
+            }
+            if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static boolean isCollection(String path) {
+        return COLLECTION_PATHS.stream().anyMatch(pattern -> PATH_MATCHER.match(pattern, path));
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -1,21 +1,65 @@
 package com.example.reciperestapi.recipe.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import lombok.AllArgsConstructor;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
+@Table(indexes = @Index(name = "idx_ingredient_canonical_name", columnList = "canonical_name"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ingredient")
+@DynamicUpdate
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Ingredient {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ingredient_seq")
+    @SequenceGenerator(name = "ingredient_seq", sequenceName = "ingredient_seq", allocationSize = 1000)
     private Long id;
     private String name;
     private String amount;
-}
\ No newline at end of file
+
+    // Derived from name and amount by their setters (see IngredientParser), so they are written with them
+    @Column(name = "canonical_name")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Setter(AccessLevel.NONE)
+    private String canonicalName;   // Shared by every use of the same ingredient, e.g. "tomato"
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Setter(AccessLevel.NONE)
+    private Double quantity;        // Leading number of the amount, if it has one
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Setter(AccessLevel.NONE)
+    private String unit;            // Unit after the quantity, e.g. "g" or "cup"
+
+    public Ingredient(Long id, String name, String amount) {
+        this.id = id;
+        setName(name);
+        setAmount(amount);
+    }
+
+    public void setName(String name) {
+        this.name = name;
+        this.canonicalName = IngredientParser.canonicalName(name);
+    }
+
+    public void setAmount(String amount) {
+        this.amount = amount;
+        IngredientParser.Amount parsed = IngredientParser.parseAmount(amount);
+        this.quantity = parsed.quantity();
+        this.unit = parsed.unit();
+    }
+}
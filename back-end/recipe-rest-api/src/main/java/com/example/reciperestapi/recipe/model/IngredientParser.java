@@ -0,0 +1,115 @@
+package com.example.reciperestapi.recipe.model;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns the free text users type for an ingredient into something recipes can share: a
+ * canonical name ("Tomatoes " and "tomato" both become "tomato") and, where the amount starts
+ * with a number, a quantity and unit ("1 1/2 cups" becomes 1.5 and "cup").
+ *
+ * Plurals are handled by a few English suffix rules on the last word, which covers the common
+ * cases without a dictionary; irregular words are left as typed.
+ */
+public final class IngredientParser {
+
+    public record Amount(Double quantity, String unit) {
+        static final Amount NONE = new Amount(null, null);
+    }
+
+    // "1 1/2 cups", "1/2 cup", "1.5 kg", "200g"
+    private static final Pattern AMOUNT = Pattern.compile(
+            "^\\s*(?:(\\d+)\\s+(\\d+)\\s*/\\s*(\\d+)|(\\d+)\\s*/\\s*(\\d+)|(\\d+(?:[.,]\\d+)?))\\s*(.*)$");
+
+    private static final Map<String, String> UNITS = Map.ofEntries(
+            Map.entry("gram", "g"), Map.entry("gr", "g"),
+            Map.entry("kilogram", "kg"), Map.entry("kilo", "kg"),
+            Map.entry("milligram", "mg"),
+            Map.entry("liter", "l"), Map.entry("litre", "l"),
+            Map.entry("milliliter", "ml"), Map.entry("millilitre", "ml"),
+            Map.entry("teaspoon", "tsp"),
+            Map.entry("tablespoon", "tbsp"), Map.entry("tb", "tbsp"),
+            Map.entry("ounce", "oz"),
+            Map.entry("pound", "lb"),
+            Map.entry("pc", "piece"));
+
+    private IngredientParser() {
+    }
+
+    /**
+     * Lower case, without accents or punctuation, single spaces, last word in the singular.
+     * @return The canonical name, or null when the name has no letters or digits
+     */
+    public static String canonicalName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String normalized = Normalizer.normalize(name, Normalizer.Form.NFKD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{N}]+", " ")
+                .trim();
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        int lastWord = normalized.lastIndexOf(' ') + 1;
+        return normalized.substring(0, lastWord) + singular(normalized.substring(lastWord));
+    }
+
+    /**
+     * Reads a leading number, whole, decimal or fraction, and the unit after it.
+     * @return Quantity and unit; both null when the amount does not start with a number ("a pinch")
+     */
+    public static Amount parseAmount(String amount) {
+        if (amount == null) {
+            return Amount.NONE;
+        }
+        Matcher matcher = AMOUNT.matcher(amount);
+        if (!matcher.matches()) {
+            return Amount.NONE;
+        }
+        Double quantity;
+        if (matcher.group(1) != null) {
+            quantity = fraction(matcher.group(2), matcher.group(3));
+            quantity = quantity == null ? null : quantity + Long.parseLong(matcher.group(1));
+        } else if (matcher.group(4) != null) {
+            quantity = fraction(matcher.group(4), matcher.group(5));
+        } else {
+            quantity = Double.valueOf(matcher.group(6).replace(',', '.'));
+        }
+        if (quantity == null) {
+            return Amount.NONE;
+        }
+        return new Amount(quantity, unit(matcher.group(7)));
+    }
+
+    private static String unit(String text) {
+        String unit = canonicalName(text);
+        return unit == null ? null : UNITS.getOrDefault(unit, unit);
+    }
+
+    private static Double fraction(String numerator, String denominator) {
+        long divisor = Long.parseLong(denominator);
+        return divisor == 0 ? null : (double) Long.parseLong(numerator) / divisor;
+    }
+
+    static String singular(String word) {
+        int length = word.length();
+        if (length <= 3 || word.endsWith("ss") || word.endsWith("us") || word.endsWith("is")) {
+            return word;
+        }
+        if (word.endsWith("ies")) {
+            return word.substring(0, length - 3) + "y";
+        }
+        if (word.endsWith("oes") || word.endsWith("ches") || word.endsWith("shes") || word.endsWith("xes")) {
+            return word.substring(0, length - 2);
+        }
+        if (word.endsWith("s")) {
+            return word.substring(0, length - 1);
+        }
+        return word;
+    }
+}
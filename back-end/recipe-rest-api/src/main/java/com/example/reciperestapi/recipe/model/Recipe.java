@@ -1,20 +1,57 @@
 package com.example.reciperestapi.recipe.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.TenantId;
 import java.util.List;
 
 @Entity
+// Read far more often than written; READ_WRITE keeps readers from seeing uncommitted changes
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recipe")
+// UPDATEs list only the changed columns, so a partial edit does not rewrite the whole row
+@DynamicUpdate
+// Every query is restricted to one owner, so each index leads with it
+@Table(indexes = {
+        @Index(name = "idx_recipe_owner_id", columnList = "owner_id, id"),
+        @Index(name = "idx_recipe_owner_name", columnList = "owner_id, name"),
+        @Index(name = "idx_recipe_owner_change_seq", columnList = "owner_id, change_seq")
+})
+@NamedEntityGraph(name = Recipe.WITH_INGREDIENTS, attributeNodes = @NamedAttributeNode("ingredients"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Recipe {
+    public static final String WITH_INGREDIENTS = "Recipe.withIngredients";
+
+    // Pooled sequence ids let Hibernate batch inserts; IDENTITY forces one round-trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recipe_seq")
+    @SequenceGenerator(name = "recipe_seq", sequenceName = "recipe_seq", allocationSize = 500)
     private Long id;
 
+    // Id of the user the recipe belongs to; set from the session on insert and never changed (see RecipeOwnerResolver)
+    @TenantId
+    @Column(name = "owner_id")
+    @JsonIgnore
+    private Long ownerId;
+
+    // Raised on every write, including edits to single ingredients; doubles as the recipe's ETag
+    @Version
+    private long version;
+
+    // Position in the global order of recipe writes, for delta sync; assigned by RecipeChangeSequence
+    @Column(name = "change_seq")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long changeSeq;
+
     private String name;
 
     @Column(length = 2000)
@@ -25,7 +62,12 @@ public class Recipe {
     @Enumerated(EnumType.STRING)
     private MealCategory category;
 
+    // Lazy ingredient collections are loaded for up to 100 recipes per query instead of one by one
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
-    @JoinColumn(name = "recipe_id")
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recipe-ingredients")
+    // Non-nullable so the foreign key goes into the ingredient INSERT; non-updatable so Hibernate
+    // does not also set it again with a follow-up UPDATE per ingredient
+    @JoinColumn(name = "recipe_id", nullable = false, updatable = false)
     private List<Ingredient> ingredients;
 }
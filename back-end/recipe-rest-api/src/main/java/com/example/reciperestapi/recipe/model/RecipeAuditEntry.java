@@ -0,0 +1,24 @@
+package com.example.reciperestapi.recipe.model;
+
+import com.example.reciperestapi.recipe.event.RecipeChange;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeAuditEntry {
+    private Long id;                // Increases with every change, across all recipes
+    private Long recipeId;
+    private Long ownerId;           // User the recipe belongs to
+    private RecipeChange.Type type;
+    private String actor;           // User who made the change, if it was made by one
+    private Instant occurredAt;     // Commit time
+    private JsonNode changes;       // Full recipe when created; changed fields and ingredients ({"from", "to"}) when updated
+}
@@ -0,0 +1,19 @@
+package com.example.reciperestapi.recipe.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeChangesResponse {
+    private List<Recipe> changed;   // Recipes created or updated since the given sequence number, in full
+    private List<Long> deleted;     // Ids of recipes deleted since then
+    private long nextSince;         // Pass as "since" on the next call
+    private boolean hasMore;        // More changes are waiting; call again with nextSince right away
+}
@@ -0,0 +1,21 @@
+package com.example.reciperestapi.recipe.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeFacetsResponse {
+    private long total;                         // Number of matching recipes across all pages
+    private Map<MealCategory, Long> counts;     // Recipes matching the name filter in each category, whichever categories are listed
+    private long uncategorized;                 // Recipes matching the name filter that have no category
+    private List<Recipe> recipes;               // Matching recipes in id order
+    private Long nextCursor;                    // Pass as "after" to get the next page; null on the last page
+}
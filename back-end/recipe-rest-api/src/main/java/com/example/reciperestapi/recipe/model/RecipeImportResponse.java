@@ -0,0 +1,29 @@
+package com.example.reciperestapi.recipe.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeImportResponse {
+    private int imported;
+    private int failed;
+    private List<ChunkResult> chunks;
+    private String error;       // Set when the upload could not be read to the end
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ChunkResult {
+        private int chunk;      // 0-based position of the chunk in the upload
+        private int received;
+        private int imported;
+        private String error;   // Set when the chunk was rolled back
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.reciperestapi.recipe.model;
+
+import com.example.reciperestapi.recipe.event.RecipeChange;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A recipe change waiting to be appended to the audit log. Rows are written in the same
+ * transaction as the change itself and removed once the audit log holds them.
+ */
+@Entity
+@Table(name = "recipe_outbox", indexes = @Index(name = "idx_recipe_outbox_recipe_id", columnList = "recipe_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeOutboxEvent {
+    // Rows are inserted with plain JDBC batches, so the database assigns the ids
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "recipe_id", nullable = false)
+    private Long recipeId;
+
+    // Id of the user the recipe belongs to
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RecipeChange.Type type;
+
+    // Name of the signed-in user who made the change; null for changes made outside a request
+    private String actor;
+
+    @Column(nullable = false)
+    private Instant occurredAt;
+
+    // What changed, as JSON; see RecipeAuditRecorder
+    @Lob
+    private String changes;
+}
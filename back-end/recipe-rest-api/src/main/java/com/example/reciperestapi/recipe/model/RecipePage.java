@@ -0,0 +1,15 @@
+package com.example.reciperestapi.recipe.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipePage {
+    private List<Recipe> recipes;
+    private Long nextCursor;    // Pass as "after" to get the next page; null on the last page
+}
@@ -0,0 +1,17 @@
+package com.example.reciperestapi.recipe.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipePatch {
+    private Long id;            // Recipe to change
+    private Long version;       // Version the client last saw; the patch is refused if the recipe has moved on
+    private JsonNode patch;     // JSON merge patch (an object, RFC 7396) or JSON Patch (an array of operations, RFC 6902)
+}
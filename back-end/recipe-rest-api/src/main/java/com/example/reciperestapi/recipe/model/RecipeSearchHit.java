@@ -0,0 +1,19 @@
+package com.example.reciperestapi.recipe.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeSearchHit {
+    private Long id;
+    private String name;
+    private String description;
+    private String imagePath;
+    private MealCategory category;
+    private float score;        // Relevance; hits are ordered by it, highest first
+}
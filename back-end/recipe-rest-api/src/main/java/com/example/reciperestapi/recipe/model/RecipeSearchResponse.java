@@ -0,0 +1,20 @@
+package com.example.reciperestapi.recipe.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeSearchResponse {
+    private String query;
+    private int page;
+    private int size;
+    private long total;         // Number of matching recipes across all pages
+    private List<RecipeSearchHit> hits;
+}
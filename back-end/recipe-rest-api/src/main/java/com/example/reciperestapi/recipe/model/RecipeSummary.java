@@ -0,0 +1,16 @@
+package com.example.reciperestapi.recipe.model;
+
+import org.springframework.data.rest.core.config.Projection;
+
+/**
+ * Recipe without its ingredients. Used as a query projection for list views and exposed on the
+ * Spring Data REST resource as {@code /api/recipes?projection=summary}.
+ */
+@Projection(name = "summary", types = Recipe.class)
+public interface RecipeSummary {
+    Long getId();
+    String getName();
+    String getDescription();
+    String getImagePath();
+    MealCategory getCategory();
+}
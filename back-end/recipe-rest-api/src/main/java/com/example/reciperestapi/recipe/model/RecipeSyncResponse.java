@@ -0,0 +1,20 @@
+package com.example.reciperestapi.recipe.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeSyncResponse {
+    private int inserted;
+    private int updated;
+    private int deleted;
+    private int unchanged;
+    private List<Long> ids;     // Stored id of each submitted recipe, in request order
+}
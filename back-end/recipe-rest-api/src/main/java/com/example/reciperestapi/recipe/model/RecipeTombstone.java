@@ -0,0 +1,31 @@
+package com.example.reciperestapi.recipe.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.TenantId;
+
+/**
+ * Marks a deleted recipe for delta sync, so clients that still hold it learn to drop it.
+ * Written in the same transaction as the delete, with the change sequence of the delete.
+ */
+@Entity
+@Table(name = "recipe_tombstone", indexes = @Index(name = "idx_recipe_tombstone_owner_change_seq", columnList = "owner_id, change_seq"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeTombstone {
+    // Recipe ids are never reused, so a recipe is deleted at most once
+    @Id
+    @Column(name = "recipe_id")
+    private Long recipeId;
+
+    // Owner of the deleted recipe; queries only see the current owner's tombstones, like recipes
+    @TenantId
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
+}
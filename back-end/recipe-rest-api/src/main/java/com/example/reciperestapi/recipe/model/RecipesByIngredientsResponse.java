@@ -0,0 +1,18 @@
+package com.example.reciperestapi.recipe.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipesByIngredientsResponse {
+    private long total;             // Number of matching recipes across all pages
+    private List<Recipe> recipes;   // Matching recipes in id order
+    private Long nextCursor;        // Pass as "after" to get the next page; null on the last page
+}
@@ -0,0 +1,159 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * JSON merge patch (RFC 7396) and JSON Patch (RFC 6902) applied to a Jackson tree. The
+ * document passed in may be modified; always use the returned node.
+ *
+ * Malformed patches and operations that do not fit the document throw
+ * {@link IllegalArgumentException}.
+ */
+final class JsonPatches {
+
+    // RFC 6902 "test" compares numbers by value, so 1, 1.0 and 1e0 are equal
+    private static final Comparator<JsonNode> BY_NUMERIC_VALUE = (left, right) -> {
+        if (left.isNumber() && right.isNumber()) {
+            return left.decimalValue().compareTo(right.decimalValue());
+        }
+        return left.equals(right) ? 0 : 1;
+    };
+
+    private JsonPatches() {
+    }
+
+    static JsonNode mergePatch(JsonNode target, JsonNode patch) {
+        if (!patch.isObject()) {
+            return patch;
+        }
+        ObjectNode result = target != null && target.isObject() ? (ObjectNode) target : JsonNodeFactory.instance.objectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isNull()) {
+                result.remove(field.getKey());
+            } else {
+                result.set(field.getKey(), mergePatch(result.get(field.getKey()), field.getValue()));
+            }
+        }
+        return result;
+    }
+
+    static JsonNode jsonPatch(JsonNode document, JsonNode operations) {
+        if (!operations.isArray()) {
+            throw new IllegalArgumentException("A JSON Patch must be an array of operations");
+        }
+        JsonNode result = document;
+        for (JsonNode operation : operations) {
+            String op = operation.path("op").asText();
+            JsonPointer path = pointer(operation, "path");
+            switch (op) {
+                case "add" -> result = add(result, path, value(operation));
+                case "remove" -> remove(result, path);
+                case "replace" -> {
+                    // The root cannot be removed, but it can be replaced
+                    if (!path.matches()) {
+                        remove(result, path);
+                    }
+                    result = add(result, path, value(operation));
+                }
+                case "move" -> {
+                    JsonPointer from = pointer(operation, "from");
+                    if (path.toString().startsWith(from + "/")) {
+                        throw new IllegalArgumentException("Cannot move " + from + " into its own child " + path);
+                    }
+                    JsonNode moved = get(result, from);
+                    remove(result, from);
+                    result = add(result, path, moved);
+                }
+                case "copy" -> result = add(result, path, get(result, pointer(operation, "from")).deepCopy());
+                case "test" -> {
+                    if (!get(result, path).equals(BY_NUMERIC_VALUE, value(operation))) {
+                        throw new IllegalArgumentException("Test failed at " + path);
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown JSON Patch operation '" + op + "'");
+            }
+        }
+        return result;
+    }
+
+    private static JsonNode add(JsonNode document, JsonPointer path, JsonNode value) {
+        if (path.matches()) {
+            return value;
+        }
+        JsonNode parent = document.at(path.head());
+        String token = path.last().getMatchingProperty();
+        if (parent instanceof ObjectNode object) {
+            object.set(token, value);
+        } else if (parent instanceof ArrayNode array) {
+            if ("-".equals(token)) {
+                array.add(value);
+            } else {
+                array.insert(index(array, token, array.size()), value);
+            }
+        } else {
+            throw new IllegalArgumentException("No container at " + path.head());
+        }
+        return document;
+    }
+
+    private static void remove(JsonNode document, JsonPointer path) {
+        if (path.matches()) {
+            throw new IllegalArgumentException("The whole document cannot be removed");
+        }
+        JsonNode parent = document.at(path.head());
+        String token = path.last().getMatchingProperty();
+        if (parent instanceof ObjectNode object && object.has(token)) {
+            object.remove(token);
+        } else if (parent instanceof ArrayNode array) {
+            array.remove(index(array, token, array.size() - 1));
+        } else {
+            throw new IllegalArgumentException("Nothing to remove at " + path);
+        }
+    }
+
+    private static JsonNode get(JsonNode document, JsonPointer path) {
+        JsonNode node = document.at(path);
+        if (node.isMissingNode()) {
+            throw new IllegalArgumentException("Nothing at " + path);
+        }
+        return node;
+    }
+
+    private static int index(ArrayNode array, String token, int max) {
+        try {
+            int index = Integer.parseInt(token);
+            if (index >= 0 && index <= max) {
+                return index;
+            }
+        } catch (NumberFormatException e) {
+            // fall through
+        }
+        throw new IllegalArgumentException("Invalid array index '" + token + "' for an array of " + array.size());
+    }
+
+    private static JsonPointer pointer(JsonNode operation, String member) {
+        JsonNode path = operation.get(member);
+        if (path == null || !path.isTextual()) {
+            throw new IllegalArgumentException("Operation is missing '" + member + "'");
+        }
+        return JsonPointer.compile(path.asText());
+    }
+
+    private static JsonNode value(JsonNode operation) {
+        JsonNode value = operation.get("value");
+        if (value == null) {
+            throw new IllegalArgumentException("Operation is missing 'value'");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.reciperestapi.recipe.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of audit records in fixed-size, memory-mapped segment files
+ * ({@code 00000001.log}, {@code 00000002.log}, ...). Appends are plain memory writes into the
+ * current segment; {@link #force} makes them durable. A new segment is started when a record
+ * does not fit into the current one.
+ *
+ * Each record is {@code [length:int][crc32c:int][eventId:long][recipeId:long][payload]}. A
+ * length of zero marks the unwritten rest of a segment, and a record whose checksum does not
+ * match is treated the same way, so a write torn by a crash is dropped and overwritten on the
+ * next start.
+ *
+ * The offsets of each recipe's records are indexed in memory, rebuilt by scanning the segments
+ * when the log is opened. Not thread-safe for writers; reads may run alongside a single writer.
+ */
+final class RecipeAuditLog implements Closeable {
+
+    private static final int HEADER = 4 + 4 + 8 + 8;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<FileChannel> segments = new CopyOnWriteArrayList<>();
+    // Record positions by recipe id: segment number in the high 24 bits, offset in the low 40
+    private final Map<Long, List<Long>> index = new HashMap<>();
+    // Event ids of the last appends, to skip events appended again after a crash before they were acknowledged
+    private final Set<Long> recentEventIds;
+
+    private MappedByteBuffer current;
+
+    RecipeAuditLog(Path directory, int segmentSize, int recentEventIdCapacity) throws IOException {
+        if (segmentSize <= HEADER) {
+            throw new IllegalArgumentException("Segment size must exceed the record header of " + HEADER + " bytes");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.recentEventIds = Collections.newSetFromMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > recentEventIdCapacity;
+            }
+        });
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(file -> file.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+        for (Path file : files) {
+            segments.add(FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        }
+        if (segments.isEmpty()) {
+            startSegment();
+        } else {
+            for (int i = 0; i < segments.size(); i++) {
+                int end = scan(i);
+                if (i == segments.size() - 1) {
+                    current = segments.get(i).map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+                    current.position(end);
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends one record. It becomes visible to {@link #read} at once and durable after the
+     * next {@link #force}.
+     * @throws IllegalArgumentException if the payload does not fit into an empty segment
+     */
+    void append(long eventId, long recipeId, byte[] payload) throws IOException {
+        int length = HEADER + payload.length;
+        if (length > segmentSize) {
+            throw new IllegalArgumentException("Audit record of " + length + " bytes exceeds the segment size of " + segmentSize);
+        }
+        if (current.remaining() < length) {
+            current.force();
+            startSegment();
+        }
+        int offset = current.position();
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        // Header after the payload, so a reader never sees a length before the bytes it covers
+        current.position(offset + 4);
+        current.putInt((int) crc.getValue()).putLong(eventId).putLong(recipeId).put(payload);
+        current.putInt(offset, length);
+        synchronized (index) {
+            index.computeIfAbsent(recipeId, id -> new ArrayList<>()).add(position(segments.size() - 1, offset));
+        }
+        recentEventIds.add(eventId);
+    }
+
+    boolean isRecentlyAppended(long eventId) {
+        return recentEventIds.contains(eventId);
+    }
+
+    /**
+     * Writes appended records through to the disk.
+     */
+    void force() {
+        current.force();
+    }
+
+    /**
+     * Payloads of every record for the recipe, in the order they were appended.
+     */
+    List<byte[]> read(long recipeId) throws IOException {
+        List<Long> positions;
+        synchronized (index) {
+            positions = List.copyOf(index.getOrDefault(recipeId, List.of()));
+        }
+        List<byte[]> payloads = new ArrayList<>(positions.size());
+        for (long position : positions) {
+            FileChannel segment = segments.get((int) (position >>> 40));
+            long offset = position & ((1L << 40) - 1);
+            ByteBuffer length = ByteBuffer.allocate(4);
+            readFully(segment, length, offset);
+            ByteBuffer payload = ByteBuffer.allocate(length.getInt(0) - HEADER);
+            readFully(segment, payload, offset + HEADER);
+            payloads.add(payload.array());
+        }
+        return payloads;
+    }
+
+    @Override
+    public void close() throws IOException {
+        current.force();
+        for (FileChannel segment : segments) {
+            segment.close();
+        }
+    }
+
+    // Indexes the records of a segment and returns the offset after the last intact one
+    private int scan(int segmentNumber) throws IOException {
+        FileChannel segment = segments.get(segmentNumber);
+        MappedByteBuffer buffer = segment.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(segment.size(), segmentSize));
+        int offset = 0;
+        while (offset + HEADER <= buffer.limit()) {
+            int length = buffer.getInt(offset);
+            if (length < HEADER || offset + length > buffer.limit()) {
+                break;
+            }
+            byte[] payload = new byte[length - HEADER];
+            buffer.get(offset + HEADER, payload);
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            if (buffer.getInt(offset + 4) != (int) crc.getValue()) {
+                break;
+            }
+            long eventId = buffer.getLong(offset + 8);
+            long recipeId = buffer.getLong(offset + 16);
+            index.computeIfAbsent(recipeId, id -> new ArrayList<>()).add(position(segmentNumber, offset));
+            recentEventIds.add(eventId);
+            offset += length;
+        }
+        return offset;
+    }
+
+    private void startSegment() throws IOException {
+        Path file = directory.resolve(String.format("%08d.log", segments.size() + 1));
+        FileChannel segment = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Mapping past the end grows the file; the new space reads as zeros, i.e. "no record"
+        current = segment.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segments.add(segment);
+    }
+
+    private static long position(int segmentNumber, int offset) {
+        return ((long) segmentNumber << 40) | offset;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Audit log segment ends inside a record");
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.example.reciperestapi.recipe.config.RecipeOwnerResolver;
+import com.example.reciperestapi.recipe.dao.RecipeOutboxRepository;
+import com.example.reciperestapi.recipe.model.RecipeAuditEntry;
+import com.example.reciperestapi.recipe.model.RecipeOutboxEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * History of recipe changes. Changes are queued in the {@code recipe_outbox} table by
+ * {@code RecipeAuditRecorder} as part of each write, and moved from there into the
+ * memory-mapped {@link RecipeAuditLog} in batches by a scheduled relay, so writers only pay for
+ * one extra batched INSERT.
+ *
+ * An event is removed from the outbox only after the log holds it durably. If the application
+ * stops in between, the relay finds the event again on the next start and skips it, since it
+ * remembers the ids of the events it appended last.
+ */
+@Slf4j
+@Service
+public class RecipeAuditService {
+
+    private final RecipeOutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final Path logDir;
+    private final DataSize segmentSize;
+    private final int batchSize;
+
+    private RecipeAuditLog auditLog;
+
+    public RecipeAuditService(RecipeOutboxRepository outboxRepository,
+                              ObjectMapper objectMapper,
+                              @Value("${recipe.audit.log-dir:data/audit-log}") Path logDir,
+                              @Value("${recipe.audit.segment-size:16MB}") DataSize segmentSize,
+                              @Value("${recipe.audit.batch-size:500}") int batchSize) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.logDir = logDir;
+        this.segmentSize = segmentSize;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        auditLog = new RecipeAuditLog(logDir, Math.toIntExact(segmentSize.toBytes()), batchSize);
+    }
+
+    @PreDestroy
+    synchronized void close() throws IOException {
+        auditLog.close();
+    }
+
+    /**
+     * Moves pending events from the outbox into the audit log, oldest first.
+     * @return Number of events appended
+     */
+    @Scheduled(fixedDelayString = "${recipe.audit.relay-interval-ms:1000}")
+    public synchronized int relay() throws IOException {
+        int appended = 0;
+        List<RecipeOutboxEvent> batch;
+        do {
+            batch = outboxRepository.findByOrderByIdAsc(PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<Long> ids = new ArrayList<>(batch.size());
+            for (RecipeOutboxEvent event : batch) {
+                ids.add(event.getId());
+                if (auditLog.isRecentlyAppended(event.getId())) {
+                    continue;
+                }
+                try {
+                    auditLog.append(event.getId(), event.getRecipeId(), objectMapper.writeValueAsBytes(toEntry(event)));
+                    appended++;
+                } catch (IllegalArgumentException e) {
+                    log.warn("Audit event {} for recipe {} dropped: {}", event.getId(), event.getRecipeId(), e.getMessage());
+                }
+            }
+            auditLog.force();
+            outboxRepository.deleteAllByIdInBatch(ids);
+        } while (batch.size() == batchSize);
+        return appended;
+    }
+
+    /**
+     * Every recorded change of a recipe, oldest first, including changes the relay has not
+     * moved to the log yet. Signed-in users only see the history of their own recipes.
+     * @param recipeId Recipe id; deleted recipes keep their history
+     */
+    public List<RecipeAuditEntry> history(Long recipeId) {
+        // Outbox first: an event missing from it has already been appended when the log is read
+        List<RecipeOutboxEvent> pending = outboxRepository.findByRecipeIdOrderByIdAsc(recipeId);
+        Map<Long, RecipeAuditEntry> entries = new LinkedHashMap<>();
+        try {
+            for (byte[] payload : auditLog.read(recipeId)) {
+                RecipeAuditEntry entry = objectMapper.readValue(payload, RecipeAuditEntry.class);
+                entries.put(entry.getId(), entry);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pending.forEach(event -> entries.putIfAbsent(event.getId(), toEntry(event)));
+        Long owner = RecipeOwnerResolver.currentOwner();
+        if (!RecipeOwnerResolver.ALL_OWNERS.equals(owner)) {
+            entries.values().removeIf(entry -> !owner.equals(entry.getOwnerId()));
+        }
+        return new ArrayList<>(entries.values());
+    }
+
+    private RecipeAuditEntry toEntry(RecipeOutboxEvent event) {
+        try {
+            return RecipeAuditEntry.builder()
+                    .id(event.getId())
+                    .recipeId(event.getRecipeId())
+                    .ownerId(event.getOwnerId())
+                    .type(event.getType())
+                    .actor(event.getActor())
+                    .occurredAt(event.getOccurredAt())
+                    .changes(objectMapper.readTree(event.getChanges()))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
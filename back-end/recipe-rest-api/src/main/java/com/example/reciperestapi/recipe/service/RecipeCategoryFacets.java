@@ -0,0 +1,303 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.example.reciperestapi.recipe.config.RecipeOwnerResolver;
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.event.RecipeChange;
+import com.example.reciperestapi.recipe.event.RecipeChangesCommittedEvent;
+import com.example.reciperestapi.recipe.model.MealCategory;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.recipe.model.RecipeFacetsResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Recipe counts per {@link MealCategory}, kept in memory so that listing a category and showing
+ * how many recipes every category holds never runs a {@code GROUP BY} over the recipe table.
+ *
+ * For each owner, and once more for all owners together, the recipes of every category are kept
+ * as an id-ordered map of id to lower-cased name. Its size is the category's count, and it pages
+ * by id like the other keyset endpoints. A name filter is answered by scanning the caller's own
+ * entries in memory.
+ *
+ * The aggregate is loaded once on startup and updated from {@link RecipeChangesCommittedEvent}s
+ * right after each commit, on the committing thread. The events carry each recipe's category and
+ * name, so the update runs no SQL. Two commits to one recipe may deliver their events in either
+ * order, so a change older than the version already counted is ignored, and so is any change to
+ * a recipe whose deletion has been seen. The listener runs before {@link RecipeCollectionVersion}
+ * raises the version, so an ETag never outruns the counts. Writes made on another instance or
+ * with plain SQL are not seen until the next restart.
+ */
+@Slf4j
+@Service
+public class RecipeCategoryFacets {
+
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final int REBUILD_PAGE_SIZE = 500;
+
+    private final RecipeRepository recipeRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // Queries take the read lock; updates and the startup load take the write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Facets allOwners = new Facets();
+    private final Map<Long, Facets> byOwner = new HashMap<>();
+    // Where each recipe is counted, so it can be taken out again
+    private final Map<Long, Entry> entries = new HashMap<>();
+    // Recipes deleted since startup. Ids are never reused, so nothing may bring these back
+    private final Set<Long> deleted = new HashSet<>();
+
+    private volatile boolean ready;
+
+    public RecipeCategoryFacets(RecipeRepository recipeRepository, PlatformTransactionManager transactionManager) {
+        this.recipeRepository = recipeRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Loads the aggregate. The write lock is held throughout, so commits made meanwhile wait and
+     * are applied on top of what was read instead of being overwritten by it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        lock.writeLock().lock();
+        try {
+            allOwners.clear();
+            byOwner.clear();
+            entries.clear();
+            long after = 0L;
+            while (true) {
+                long cursor = after;
+                List<Entry> page = readOnlyTransaction.execute(status ->
+                        recipeRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, REBUILD_PAGE_SIZE))
+                                .stream()
+                                .map(recipe -> new Entry(recipe.getId(), recipe.getOwnerId(), recipe.getVersion(),
+                                        recipe.getCategory(), lowerCase(recipe.getName())))
+                                .toList());
+                page.forEach(this::add);
+                if (page.size() < REBUILD_PAGE_SIZE) {
+                    break;
+                }
+                after = page.get(page.size() - 1).recipeId();
+            }
+            ready = true;
+            log.info("Category counts loaded for {} recipes", entries.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to load the recipe category counts", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onRecipesChanged(RecipeChangesCommittedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (RecipeChange change : event.getChanges()) {
+                if (isOutdated(change)) {
+                    continue;
+                }
+                remove(change.getRecipeId());
+                if (change.getType() == RecipeChange.Type.DELETED) {
+                    deleted.add(change.getRecipeId());
+                } else {
+                    add(new Entry(change.getRecipeId(), change.getOwnerId(), change.getVersion(),
+                            change.getCategory(), lowerCase(change.getName())));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The current owner's recipes in the given categories whose name contains {@code name},
+     * along with how many of the recipes matching {@code name} fall in each category.
+     * @param categories Categories to list, or empty for all recipes including uncategorized ones
+     * @param name Text the name must contain, ignoring case; null or blank for any name
+     * @param after Last id of the previous page, or null for the first page
+     * @param size Page size, capped at {@link #MAX_PAGE_SIZE}
+     * @throws ResponseStatusException 503 while the counts are being loaded on startup
+     */
+    public RecipeFacetsResponse find(Collection<MealCategory> categories, String name, Long after, int size) {
+        if (!ready) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The recipe category counts are still being loaded");
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        long cursor = after == null ? 0L : after;
+        String text = name == null || name.isBlank() ? null : lowerCase(name.trim());
+        Set<MealCategory> selected = categories == null || categories.isEmpty()
+                ? null
+                : EnumSet.copyOf(categories);
+
+        Map<MealCategory, Long> counts = new EnumMap<>(MealCategory.class);
+        long uncategorized;
+        List<Long> ids = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Long owner = RecipeOwnerResolver.currentOwner();
+            Facets facets = RecipeOwnerResolver.ALL_OWNERS.equals(owner) ? allOwners : byOwner.get(owner);
+            if (facets == null) {
+                facets = Facets.EMPTY;
+            }
+            for (MealCategory category : MealCategory.values()) {
+                NavigableMap<Long, String> recipes = facets.recipes(category);
+                counts.put(category, count(recipes, text));
+                if (selected == null || selected.contains(category)) {
+                    collectPage(recipes, text, cursor, pageSize, ids);
+                }
+            }
+            uncategorized = count(facets.uncategorized, text);
+            if (selected == null) {
+                collectPage(facets.uncategorized, text, cursor, pageSize, ids);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        long total = selected == null
+                ? counts.values().stream().mapToLong(Long::longValue).sum() + uncategorized
+                : selected.stream().mapToLong(counts::get).sum();
+        // Each category contributed its own first page; the merged page is the lowest ids among them
+        ids.sort(Comparator.naturalOrder());
+        List<Long> pageIds = ids.size() > pageSize ? ids.subList(0, pageSize) : ids;
+        // The database has the final say on recipes changed since the ids were picked
+        List<Recipe> recipes = pageIds.isEmpty() ? List.of() : recipeRepository.findAllWithIngredientsByIdIn(pageIds).stream()
+                .sorted(Comparator.comparing(Recipe::getId))
+                .toList();
+        return RecipeFacetsResponse.builder()
+                .total(total)
+                .counts(counts)
+                .uncategorized(uncategorized)
+                .recipes(recipes)
+                .nextCursor(pageIds.size() < pageSize ? null : pageIds.get(pageIds.size() - 1))
+                .build();
+    }
+
+    private static long count(NavigableMap<Long, String> recipes, String text) {
+        if (text == null) {
+            return recipes.size();
+        }
+        return recipes.values().stream().filter(name -> name != null && name.contains(text)).count();
+    }
+
+    private static void collectPage(NavigableMap<Long, String> recipes, String text, long after, int pageSize,
+                                    List<Long> ids) {
+        int taken = 0;
+        for (Map.Entry<Long, String> recipe : recipes.tailMap(after, false).entrySet()) {
+            if (taken == pageSize) {
+                return;
+            }
+            if (text == null || (recipe.getValue() != null && recipe.getValue().contains(text))) {
+                ids.add(recipe.getKey());
+                taken++;
+            }
+        }
+    }
+
+    // Events are published after commit on each committing thread, so a later commit's may come first.
+    // Deletions and bulk writes carry no version and always apply, except that a deleted recipe
+    // stays deleted. Callers hold the write lock
+    private boolean isOutdated(RecipeChange change) {
+        if (change.getType() != RecipeChange.Type.DELETED && deleted.contains(change.getRecipeId())) {
+            return true;
+        }
+        Entry current = entries.get(change.getRecipeId());
+        return change.getVersion() != null && current != null && current.version() != null
+                && change.getVersion() < current.version();
+    }
+
+    // Callers hold the write lock
+    private void add(Entry entry) {
+        allOwners.add(entry);
+        if (entry.ownerId() != null) {
+            byOwner.computeIfAbsent(entry.ownerId(), key -> new Facets()).add(entry);
+        }
+        entries.put(entry.recipeId(), entry);
+    }
+
+    // Callers hold the write lock
+    private void remove(Long recipeId) {
+        Entry entry = entries.remove(recipeId);
+        if (entry == null) {
+            return;
+        }
+        allOwners.remove(entry);
+        Facets facets = entry.ownerId() == null ? null : byOwner.get(entry.ownerId());
+        if (facets != null) {
+            facets.remove(entry);
+            if (facets.isEmpty()) {
+                byOwner.remove(entry.ownerId());
+            }
+        }
+    }
+
+    private static String lowerCase(String text) {
+        return text == null ? null : text.toLowerCase(Locale.ROOT);
+    }
+
+    private record Entry(Long recipeId, Long ownerId, Long version, MealCategory category, String name) {
+    }
+
+    // The recipes of one owner, or of all owners, by category: id to lower-cased name
+    private static final class Facets {
+
+        static final Facets EMPTY = new Facets();
+
+        final Map<MealCategory, NavigableMap<Long, String>> byCategory = new EnumMap<>(MealCategory.class);
+        final NavigableMap<Long, String> uncategorized = new TreeMap<>();
+
+        Facets() {
+            for (MealCategory category : MealCategory.values()) {
+                byCategory.put(category, new TreeMap<>());
+            }
+        }
+
+        NavigableMap<Long, String> recipes(MealCategory category) {
+            return category == null ? uncategorized : byCategory.get(category);
+        }
+
+        void add(Entry entry) {
+            recipes(entry.category()).put(entry.recipeId(), entry.name());
+        }
+
+        void remove(Entry entry) {
+            recipes(entry.category()).remove(entry.recipeId());
+        }
+
+        boolean isEmpty() {
+            return uncategorized.isEmpty() && byCategory.values().stream().allMatch(Map::isEmpty);
+        }
+
+        void clear() {
+            uncategorized.clear();
+            byCategory.values().forEach(Map::clear);
+        }
+    }
+}
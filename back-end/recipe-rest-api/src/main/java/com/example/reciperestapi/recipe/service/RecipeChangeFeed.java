@@ -0,0 +1,347 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.example.reciperestapi.recipe.config.RecipeOwnerResolver;
+import com.example.reciperestapi.recipe.event.RecipeChange;
+import com.example.reciperestapi.recipe.event.RecipeChangesCommittedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes committed recipe changes to server-sent event subscribers.
+ *
+ * Changes go into a fixed-size ring; each subscriber only holds its position in it, so memory
+ * does not grow with slow clients. Sending runs on a small pool with at most one task per
+ * subscriber at a time. A subscriber that falls more than a ring's length behind, or resumes
+ * from an event the ring no longer holds, gets a single {@code reset} event instead of the
+ * missed changes and should reload the recipe list (revalidating with its ETag).
+ *
+ * Sends are blocking socket writes. A subscriber whose write has not returned within
+ * {@code recipe.changes.send-timeout-ms} is dropped as stalled and the pool gets a thread in
+ * place of the one stuck writing to it, so a few clients that stop reading cannot hold up
+ * everyone else. Once the write returns or fails, the stream is completed and the extra thread
+ * goes away; the client reconnects and resumes from its last event, or is reset.
+ *
+ * Event ids carry the startup time, like the collection ETag, so a client resuming with an id
+ * from before a restart is reset rather than silently missing changes.
+ *
+ * Subscribers only get changes to their own recipes; the ring holds everyone's, so event ids
+ * a subscriber sees have gaps.
+ */
+@Slf4j
+@Service
+public class RecipeChangeFeed {
+
+    static final String CHANGE_EVENT = "recipe";
+    static final String RESET_EVENT = "reset";
+
+    // Events sent to a subscriber per pass, so one busy subscriber does not hold the ring lock long
+    private static final int SEND_BATCH = 256;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final RecipeChange[] ring;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor sender;
+
+    // Sequence number the next change gets; guarded by this
+    private long nextSequence = 1;
+
+    public RecipeChangeFeed(@Value("${recipe.changes.buffer-size:4096}") int bufferSize,
+                            @Value("${recipe.changes.sender-threads:4}") int senderThreads,
+                            @Value("${recipe.changes.max-subscribers:1000}") int maxSubscribers,
+                            @Value("${recipe.changes.timeout-ms:1800000}") long timeoutMillis,
+                            @Value("${recipe.changes.send-timeout-ms:5000}") long sendTimeoutMillis) {
+        this.ring = new RecipeChange[bufferSize];
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Platform threads: SseEmitter sends while holding a monitor, which would pin a virtual thread on a slow socket
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                // One queued task per subscriber at most
+                new ArrayBlockingQueue<>(maxSubscribers),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "recipe-change-feed-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void close() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        sender.shutdownNow();
+    }
+
+    /**
+     * Opens a stream of changes committed from now on, or since {@code lastEventId} if the ring
+     * still holds them.
+     * @throws ResponseStatusException 503 when {@code recipe.changes.max-subscribers} streams are open
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many open change streams");
+        }
+        return subscribe(new SseEmitter(timeoutMillis), lastEventId);
+    }
+
+    // Separate so tests can stand in for the client's end of the stream
+    SseEmitter subscribe(SseEmitter emitter, String lastEventId) {
+        Subscriber subscriber = new Subscriber(emitter, RecipeOwnerResolver.currentOwner(), resumeSequence(lastEventId));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        // An initial comment tells the client the stream is open
+        subscriber.heartbeatDue = true;
+        schedule(subscriber);
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    // Runs on the committing thread, before the collection version is raised; only copies the changes into the ring
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onRecipesChanged(RecipeChangesCommittedEvent event) {
+        if (event.getChanges().isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            for (RecipeChange change : event.getChanges()) {
+                ring[slot(nextSequence++)] = change;
+            }
+        }
+        subscribers.forEach(this::schedule);
+    }
+
+    // Keeps idle connections open through proxies and notices clients that went away
+    @Scheduled(fixedDelayString = "${recipe.changes.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach(subscriber -> {
+            subscriber.heartbeatDue = true;
+            schedule(subscriber);
+        });
+    }
+
+    /**
+     * Drops subscribers whose current write has taken longer than the send timeout, and gives
+     * the pool a thread for each one so the others are still served.
+     */
+    @Scheduled(fixedDelayString = "${recipe.changes.stall-check-interval-ms:1000}")
+    public void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.state.get() == Subscriber.SENDING
+                    && now - subscriber.sendStartedAt > sendTimeoutNanos
+                    && subscriber.state.compareAndSet(Subscriber.SENDING, Subscriber.STALLED)) {
+                subscribers.remove(subscriber);
+                resizeSender(1);
+                log.debug("Change stream stalled for {} ms; dropping it", TimeUnit.NANOSECONDS.toMillis(now - subscriber.sendStartedAt));
+            }
+        }
+    }
+
+    // Grows or shrinks the sending pool by one thread per stalled subscriber
+    private void resizeSender(int delta) {
+        synchronized (sender) {
+            if (delta > 0) {
+                sender.setMaximumPoolSize(sender.getMaximumPoolSize() + delta);
+                sender.setCorePoolSize(sender.getCorePoolSize() + delta);
+            } else {
+                sender.setCorePoolSize(sender.getCorePoolSize() + delta);
+                sender.setMaximumPoolSize(sender.getMaximumPoolSize() + delta);
+            }
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sender.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the client reconnects and resumes from its last event
+            subscriber.scheduled.set(false);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        if (subscriber.state.get() == Subscriber.CLOSED) {
+            subscriber.scheduled.set(false);
+            return;
+        }
+        try {
+            while (true) {
+                List<RecipeChange> batch = new ArrayList<>();
+                long first;
+                boolean overrun;
+                synchronized (this) {
+                    overrun = subscriber.cursor < oldestSequence();
+                    if (overrun) {
+                        subscriber.cursor = nextSequence;
+                    }
+                    first = subscriber.cursor;
+                    for (long sequence = first; sequence < nextSequence && batch.size() < SEND_BATCH; sequence++) {
+                        batch.add(ring[slot(sequence)]);
+                    }
+                }
+                if (overrun) {
+                    if (!send(subscriber, SseEmitter.event().id(eventId(first - 1)).name(RESET_EVENT).data("{}", MediaType.APPLICATION_JSON))) {
+                        return;
+                    }
+                    subscriber.heartbeatDue = false;
+                    continue;
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    if (subscriber.sees(batch.get(i))) {
+                        if (!send(subscriber, SseEmitter.event().id(eventId(first + i)).name(CHANGE_EVENT).data(batch.get(i), MediaType.APPLICATION_JSON))) {
+                            return;
+                        }
+                        subscriber.heartbeatDue = false;
+                    }
+                }
+                subscriber.cursor = first + batch.size();
+            }
+            if (subscriber.heartbeatDue) {
+                subscriber.heartbeatDue = false;
+                if (!send(subscriber, SseEmitter.event().comment(""))) {
+                    return;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the stream timed out
+            subscribers.remove(subscriber);
+            log.debug("Change stream closed: {}", e.getMessage());
+            return;
+        } finally {
+            subscriber.scheduled.set(false);
+            if (subscriber.state.compareAndSet(Subscriber.STALLED, Subscriber.CLOSED)) {
+                closeStalled(subscriber);
+            }
+        }
+        // A change committed after the last look at the ring would otherwise wait for the next one
+        boolean behind;
+        synchronized (this) {
+            behind = subscriber.cursor < nextSequence;
+        }
+        if (behind) {
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Sends one event, timing it for {@link #dropStalledSubscribers}.
+     * @return false if the subscriber was dropped as stalled while the write was blocked
+     */
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        subscriber.sendStartedAt = System.nanoTime();
+        subscriber.state.set(Subscriber.SENDING);
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            subscriber.state.compareAndSet(Subscriber.SENDING, Subscriber.IDLE);
+        }
+        return subscriber.state.get() == Subscriber.IDLE;
+    }
+
+    // The stalled write has returned: end the stream and give back the thread added in its place
+    private void closeStalled(Subscriber subscriber) {
+        resizeSender(-1);
+        try {
+            subscriber.emitter.complete();
+        } catch (IllegalStateException e) {
+            // Already completed by the failed write
+        }
+    }
+
+    // First sequence to send to a client that saw everything up to lastEventId
+    private synchronized long resumeSequence(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return nextSequence;
+        }
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator > 0 && lastEventId.substring(0, separator).equals(epoch)) {
+            try {
+                long lastSeen = Long.parseLong(lastEventId.substring(separator + 1));
+                if (lastSeen < nextSequence) {
+                    return lastSeen + 1;
+                }
+            } catch (NumberFormatException e) {
+                // Not one of ours
+            }
+        }
+        // Unknown or from before a restart: the client is reset on its first pass
+        return 0;
+    }
+
+    private long oldestSequence() {
+        return Math.max(1, nextSequence - ring.length);
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % ring.length);
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    private static final class Subscriber {
+        static final int IDLE = 0;
+        static final int SENDING = 1;
+        static final int STALLED = 2;
+        static final int CLOSED = 3;
+
+        private final SseEmitter emitter;
+        private final Long ownerId;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // Whether a write is in progress, and whether it was given up on as stalled
+        private final AtomicInteger state = new AtomicInteger(IDLE);
+        private volatile long sendStartedAt;
+        // Next sequence to send; only touched by the one task draining this subscriber
+        private volatile long cursor;
+        private volatile boolean heartbeatDue;
+
+        Subscriber(SseEmitter emitter, Long ownerId, long cursor) {
+            this.emitter = emitter;
+            this.ownerId = ownerId;
+            this.cursor = cursor;
+        }
+
+        boolean sees(RecipeChange change) {
+            return RecipeOwnerResolver.ALL_OWNERS.equals(ownerId) || ownerId.equals(change.getOwnerId());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.example.reciperestapi.recipe.config.RecipeOwnerResolver;
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.event.RecipeChange;
+import com.example.reciperestapi.recipe.event.RecipeChangeSequence;
+import com.example.reciperestapi.recipe.event.RecipeChangesCommittedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A version of each owner's recipe collection, raised by every committed write to one of their
+ * recipes. Answers "has anything changed since?" for list endpoints without loading a recipe.
+ * Sessions that see every owner's recipes get a version raised by any write.
+ *
+ * The version is read from the database, so every instance behind a load balancer hands out the
+ * same ETag for the same recipes. It is the sum of the {@link RecipeChangeSequence} numbers of the
+ * owner's recipes and tombstones: an insert adds a number, and an update or delete replaces one
+ * with a higher one, so the sum grows with every write in whatever order transactions commit.
+ * One statement sums both, scanning only the owner's entries of the {@code (owner_id, change_seq)}
+ * indexes. Writes made with plain SQL are not numbered and not seen.
+ *
+ * Lists answered from an aggregate this instance holds in memory also depend on which commits it
+ * has applied; {@link #inMemoryEtag} adds a counter for that.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecipeCollectionVersion {
+
+    private final RecipeRepository recipeRepository;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    // Commits applied by this instance; guarded by this. Owners without a write since startup have no entry
+    private final Map<Long, Long> applied = new HashMap<>();
+
+    // Runs on the committing thread once the changes are visible to other transactions, and after
+    // the in-memory aggregates have taken them in, so that a new ETag is never paired with old data
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public synchronized void onRecipesChanged(RecipeChangesCommittedEvent event) {
+        if (event.getChanges().isEmpty()) {
+            return;
+        }
+        Set<Long> owners = new HashSet<>();
+        owners.add(RecipeOwnerResolver.ALL_OWNERS);
+        for (RecipeChange change : event.getChanges()) {
+            if (change.getOwnerId() != null) {
+                owners.add(change.getOwnerId());
+            }
+        }
+        owners.forEach(owner -> applied.merge(owner, 1L, Long::sum));
+    }
+
+    /**
+     * ETag of the current owner's recipes, which changes whenever one of them is created, updated
+     * or deleted. It is weak because the same list is sent gzipped or not, and Tomcat only
+     * compresses responses with weak ETags.
+     */
+    public String etag() {
+        Long owner = RecipeOwnerResolver.currentOwner();
+        // Recipes and tombstones are only ever read for the session's owner
+        return "W/\"recipes-" + owner + "-" + recipeRepository.sumChangeSeq() + "\"";
+    }
+
+    /**
+     * {@link #etag()} for lists answered from an aggregate held in memory, such as
+     * {@link RecipeCategoryFacets}. It also changes when this instance applies a commit, and
+     * after a restart, when the aggregate has been loaded again.
+     */
+    public String inMemoryEtag() {
+        String etag = etag();
+        long counter;
+        synchronized (this) {
+            counter = applied.getOrDefault(RecipeOwnerResolver.currentOwner(), 0L);
+        }
+        return etag.substring(0, etag.length() - 1) + "-" + epoch + "-" + counter + "\"";
+    }
+}
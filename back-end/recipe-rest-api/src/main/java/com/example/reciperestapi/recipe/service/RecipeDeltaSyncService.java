@@ -0,0 +1,85 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.dao.RecipeTombstoneRepository;
+import com.example.reciperestapi.recipe.event.RecipeChangeSequence;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.recipe.model.RecipeChangesResponse;
+import com.example.reciperestapi.recipe.model.RecipeTombstone;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recipes changed and deleted after a given change sequence number (see
+ * {@link RecipeChangeSequence}), so a returning client can catch up without reloading the
+ * whole recipe book.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecipeDeltaSyncService {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeTombstoneRepository tombstoneRepository;
+    private final RecipeChangeSequence recipeChangeSequence;
+
+    /**
+     * Changes after {@code since}, oldest first. Each recipe appears once, as it is now, however
+     * often it changed in between.
+     * @param since Last sequence number the client has seen; 0 for everything
+     * @param size Changes per call, capped at {@link #MAX_PAGE_SIZE}
+     */
+    @Transactional(readOnly = true)
+    public RecipeChangesResponse changesSince(long since, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Read first: changes committing from now on have higher numbers and are left for the next call
+        long upTo = recipeChangeSequence.watermark();
+        List<Recipe> recipes = List.of();
+        List<RecipeTombstone> tombstones = List.of();
+        if (since < upTo) {
+            // One extra row each tells whether anything is left after this page
+            recipes = recipeRepository.findChangedBetween(since, upTo, PageRequest.of(0, pageSize + 1));
+            // A client starting from scratch holds nothing that could have been deleted
+            if (since > 0) {
+                tombstones = tombstoneRepository.findChangedBetween(since, upTo, PageRequest.of(0, pageSize + 1));
+            }
+        }
+
+        List<Recipe> changed = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        long last = since;
+        int r = 0;
+        int t = 0;
+        while (changed.size() + deleted.size() < pageSize && (r < recipes.size() || t < tombstones.size())) {
+            if (t == tombstones.size()
+                    || (r < recipes.size() && recipes.get(r).getChangeSeq() < tombstones.get(t).getChangeSeq())) {
+                Recipe recipe = recipes.get(r++);
+                changed.add(recipe);
+                last = recipe.getChangeSeq();
+            } else {
+                RecipeTombstone tombstone = tombstones.get(t++);
+                deleted.add(tombstone.getRecipeId());
+                last = tombstone.getChangeSeq();
+            }
+        }
+        boolean hasMore = r < recipes.size() || t < tombstones.size();
+
+        // Loads the ingredients of up to 100 recipes per query while the transaction is still open
+        changed.forEach(recipe -> Hibernate.initialize(recipe.getIngredients()));
+
+        return RecipeChangesResponse.builder()
+                .changed(changed)
+                .deleted(deleted)
+                // Past numbers that rolled back, so the next call does not scan them again
+                .nextSince(hasMore ? last : Math.max(since, upTo))
+                .hasMore(hasMore)
+                .build();
+    }
+}
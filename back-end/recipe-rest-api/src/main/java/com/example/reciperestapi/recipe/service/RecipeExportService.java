@@ -0,0 +1,98 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.recipe.model.RecipePage;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Read paths over the whole recipe table that keep memory flat as the catalog grows.
+ */
+@Service
+public class RecipeExportService {
+
+    // Matches @BatchSize on Recipe.ingredients, so each group costs one ingredient query
+    static final int EXPORT_GROUP_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final RecipeRepository recipeRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public RecipeExportService(RecipeRepository recipeRepository,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager) {
+        this.recipeRepository = recipeRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Writes every recipe as one JSON array. Recipes are streamed from the database in id order
+     * and written in groups; ingredients are loaded once per group and the persistence context is
+     * cleared after each group, so only one group is ever held in memory.
+     */
+    public void exportAll(OutputStream out) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Recipe> recipes = recipeRepository.streamAll();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                List<Recipe> group = new ArrayList<>(EXPORT_GROUP_SIZE);
+                Iterator<Recipe> iterator = recipes.iterator();
+                while (iterator.hasNext()) {
+                    group.add(iterator.next());
+                    if (group.size() == EXPORT_GROUP_SIZE || !iterator.hasNext()) {
+                        writeGroup(generator, group);
+                        group.clear();
+                    }
+                }
+                generator.writeEndArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeGroup(JsonGenerator generator, List<Recipe> group) throws IOException {
+        // Initialising one collection batch-loads the ingredients of the whole group
+        Hibernate.initialize(group.get(0).getIngredients());
+        for (Recipe recipe : group) {
+            objectMapper.writeValue(generator, recipe);
+        }
+        generator.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Keyset pagination by id: cost does not depend on how deep the client pages.
+     * @param after Last id of the previous page, or null for the first page
+     * @param size Page size, capped at {@link #MAX_PAGE_SIZE}
+     */
+    public RecipePage page(Long after, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<Recipe> recipes = recipeRepository.findByIdGreaterThanOrderByIdAsc(
+                after == null ? 0L : after, PageRequest.of(0, pageSize));
+        Long nextCursor = recipes.size() < pageSize ? null : recipes.get(recipes.size() - 1).getId();
+        return new RecipePage(recipes, nextCursor);
+    }
+}
@@ -0,0 +1,357 @@
+package com.example.reciperestapi.recipe.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compressed set of recipe ids, laid out like a Roaring bitmap: ids are grouped by their upper
+ * 16 bits, and each group holds its lower 16 bits either as a sorted array, while it has at most
+ * 4096 of them, or as a 65536-bit bitmap (8 KB) once it has more. Sparse sets cost two bytes per
+ * id, dense ones one bit, and intersections work a group at a time, word by word for bitmaps.
+ *
+ * Ids must lie between 0 and 2^32 - 1. Not thread-safe; {@link RecipeIngredientIndex} guards
+ * its bitmaps with a lock, and the results of {@link #and}, {@link #or} and {@link #andNot} are
+ * new bitmaps that share nothing with their operands.
+ */
+final class RecipeIdBitmap {
+
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    // Containers by the upper 16 bits of their ids, in ascending order; none is empty
+    private final TreeMap<Integer, Container> containers = new TreeMap<>();
+
+    static RecipeIdBitmap of(long... ids) {
+        RecipeIdBitmap bitmap = new RecipeIdBitmap();
+        for (long id : ids) {
+            bitmap.add(id);
+        }
+        return bitmap;
+    }
+
+    void add(long id) {
+        checkRange(id);
+        containers.computeIfAbsent(high(id), key -> new Container()).add(low(id));
+    }
+
+    void remove(long id) {
+        checkRange(id);
+        Container container = containers.get(high(id));
+        if (container != null) {
+            container.remove(low(id));
+            if (container.cardinality == 0) {
+                containers.remove(high(id));
+            }
+        }
+    }
+
+    boolean contains(long id) {
+        Container container = id < 0 || id > 0xFFFFFFFFL ? null : containers.get(high(id));
+        return container != null && container.contains(low(id));
+    }
+
+    boolean isEmpty() {
+        return containers.isEmpty();
+    }
+
+    long cardinality() {
+        long cardinality = 0;
+        for (Container container : containers.values()) {
+            cardinality += container.cardinality;
+        }
+        return cardinality;
+    }
+
+    RecipeIdBitmap and(RecipeIdBitmap other) {
+        RecipeIdBitmap result = new RecipeIdBitmap();
+        // Walk the bitmap with fewer groups and look the others up
+        RecipeIdBitmap smaller = containers.size() <= other.containers.size() ? this : other;
+        RecipeIdBitmap larger = smaller == this ? other : this;
+        for (Map.Entry<Integer, Container> entry : smaller.containers.entrySet()) {
+            Container match = larger.containers.get(entry.getKey());
+            if (match != null) {
+                result.put(entry.getKey(), Container.and(entry.getValue(), match));
+            }
+        }
+        return result;
+    }
+
+    RecipeIdBitmap or(RecipeIdBitmap other) {
+        RecipeIdBitmap result = new RecipeIdBitmap();
+        containers.forEach((key, container) -> {
+            Container match = other.containers.get(key);
+            result.put(key, match == null ? container.copy() : Container.or(container, match));
+        });
+        other.containers.forEach((key, container) -> {
+            if (!containers.containsKey(key)) {
+                result.put(key, container.copy());
+            }
+        });
+        return result;
+    }
+
+    RecipeIdBitmap andNot(RecipeIdBitmap other) {
+        RecipeIdBitmap result = new RecipeIdBitmap();
+        containers.forEach((key, container) -> {
+            Container match = other.containers.get(key);
+            result.put(key, match == null ? container.copy() : Container.andNot(container, match));
+        });
+        return result;
+    }
+
+    /**
+     * Ids greater than {@code after}, in ascending order.
+     * @param limit Maximum number of ids to return
+     */
+    List<Long> idsAfter(long after, int limit) {
+        List<Long> ids = new ArrayList<>(Math.min(limit, 1024));
+        long from = Math.max(0, after + 1);
+        if (from > 0xFFFFFFFFL) {
+            return ids;
+        }
+        for (Map.Entry<Integer, Container> entry : containers.tailMap(high(from), true).entrySet()) {
+            long base = (long) entry.getKey() << 16;
+            int value = entry.getKey() == high(from) ? low(from) : 0;
+            while (ids.size() < limit && (value = entry.getValue().next(value)) >= 0) {
+                ids.add(base | value);
+                value++;
+            }
+            if (ids.size() == limit) {
+                break;
+            }
+        }
+        return ids;
+    }
+
+    private void put(int key, Container container) {
+        if (container.cardinality > 0) {
+            containers.put(key, container);
+        }
+    }
+
+    private static void checkRange(long id) {
+        if (id < 0 || id > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Recipe id " + id + " is outside the range of the ingredient index");
+        }
+    }
+
+    private static int high(long id) {
+        return (int) (id >>> 16);
+    }
+
+    private static int low(long id) {
+        return (int) (id & 0xFFFF);
+    }
+
+    /**
+     * The lower 16 bits of the ids of one group. Exactly one of {@code array} and {@code bits}
+     * is set at a time.
+     */
+    private static final class Container {
+
+        private char[] array;
+        private long[] bits;
+        private int cardinality;
+
+        Container() {
+            array = new char[4];
+        }
+
+        private Container(char[] array, long[] bits, int cardinality) {
+            this.array = array;
+            this.bits = bits;
+            this.cardinality = cardinality;
+        }
+
+        boolean contains(int value) {
+            if (bits != null) {
+                return (bits[value >>> 6] & (1L << value)) != 0;
+            }
+            return Arrays.binarySearch(array, 0, cardinality, (char) value) >= 0;
+        }
+
+        void add(int value) {
+            if (bits != null) {
+                long mask = 1L << value;
+                if ((bits[value >>> 6] & mask) == 0) {
+                    bits[value >>> 6] |= mask;
+                    cardinality++;
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(array, 0, cardinality, (char) value);
+            if (index >= 0) {
+                return;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                bits = words();
+                array = null;
+                add(value);
+                return;
+            }
+            index = -index - 1;
+            if (cardinality == array.length) {
+                array = Arrays.copyOf(array, Math.min(ARRAY_LIMIT, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(array, index, array, index + 1, cardinality - index);
+            array[index] = (char) value;
+            cardinality++;
+        }
+
+        void remove(int value) {
+            if (bits != null) {
+                long mask = 1L << value;
+                if ((bits[value >>> 6] & mask) != 0) {
+                    bits[value >>> 6] &= ~mask;
+                    cardinality--;
+                    // Half the limit, so a group hovering around it is not converted back and forth
+                    if (cardinality <= ARRAY_LIMIT / 2) {
+                        array = values(bits, cardinality);
+                        bits = null;
+                    }
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(array, 0, cardinality, (char) value);
+            if (index >= 0) {
+                System.arraycopy(array, index + 1, array, index, cardinality - index - 1);
+                cardinality--;
+            }
+        }
+
+        // Smallest value at or above from, or -1
+        int next(int from) {
+            if (from > 0xFFFF) {
+                return -1;
+            }
+            if (bits != null) {
+                int word = from >>> 6;
+                long remaining = bits[word] & (-1L << from);
+                while (remaining == 0) {
+                    if (++word == BITMAP_WORDS) {
+                        return -1;
+                    }
+                    remaining = bits[word];
+                }
+                return word * 64 + Long.numberOfTrailingZeros(remaining);
+            }
+            int index = Arrays.binarySearch(array, 0, cardinality, (char) from);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return index < cardinality ? array[index] : -1;
+        }
+
+        Container copy() {
+            return bits != null
+                    ? new Container(null, bits.clone(), cardinality)
+                    : new Container(Arrays.copyOf(array, cardinality), null, cardinality);
+        }
+
+        static Container and(Container a, Container b) {
+            if (a.bits != null && b.bits != null) {
+                long[] words = new long[BITMAP_WORDS];
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    words[i] = a.bits[i] & b.bits[i];
+                }
+                return fromWords(words);
+            }
+            // At least one side is an array; its values are the only candidates
+            Container array = a.bits == null ? a : b;
+            Container other = array == a ? b : a;
+            char[] values = new char[array.cardinality];
+            int cardinality = 0;
+            for (int i = 0; i < array.cardinality; i++) {
+                if (other.contains(array.array[i])) {
+                    values[cardinality++] = array.array[i];
+                }
+            }
+            return new Container(values, null, cardinality);
+        }
+
+        static Container or(Container a, Container b) {
+            if (a.bits == null && b.bits == null && a.cardinality + b.cardinality <= ARRAY_LIMIT) {
+                char[] values = new char[a.cardinality + b.cardinality];
+                int i = 0;
+                int j = 0;
+                int cardinality = 0;
+                while (i < a.cardinality || j < b.cardinality) {
+                    char value;
+                    if (j == b.cardinality || (i < a.cardinality && a.array[i] < b.array[j])) {
+                        value = a.array[i++];
+                    } else if (i == a.cardinality || b.array[j] < a.array[i]) {
+                        value = b.array[j++];
+                    } else {
+                        value = a.array[i++];
+                        j++;
+                    }
+                    values[cardinality++] = value;
+                }
+                return new Container(values, null, cardinality);
+            }
+            long[] words = a.words();
+            long[] other = b.bits != null ? b.bits : b.words();
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                words[i] |= other[i];
+            }
+            return fromWords(words);
+        }
+
+        static Container andNot(Container a, Container b) {
+            if (a.bits == null) {
+                char[] values = new char[a.cardinality];
+                int cardinality = 0;
+                for (int i = 0; i < a.cardinality; i++) {
+                    if (!b.contains(a.array[i])) {
+                        values[cardinality++] = a.array[i];
+                    }
+                }
+                return new Container(values, null, cardinality);
+            }
+            long[] words = a.bits.clone();
+            long[] other = b.bits != null ? b.bits : b.words();
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                words[i] &= ~other[i];
+            }
+            return fromWords(words);
+        }
+
+        // A fresh bitmap of this container's values
+        private long[] words() {
+            if (bits != null) {
+                return bits.clone();
+            }
+            long[] words = new long[BITMAP_WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                words[array[i] >>> 6] |= 1L << array[i];
+            }
+            return words;
+        }
+
+        private static Container fromWords(long[] words) {
+            int cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            return cardinality > ARRAY_LIMIT
+                    ? new Container(null, words, cardinality)
+                    : new Container(values(words, cardinality), null, cardinality);
+        }
+
+        private static char[] values(long[] words, int cardinality) {
+            char[] values = new char[Math.max(cardinality, 4)];
+            int index = 0;
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                long remaining = words[word];
+                while (remaining != 0) {
+                    values[index++] = (char) (word * 64 + Long.numberOfTrailingZeros(remaining));
+                    remaining &= remaining - 1;
+                }
+            }
+            return values;
+        }
+    }
+}
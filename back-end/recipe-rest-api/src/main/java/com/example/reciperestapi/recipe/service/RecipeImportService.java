@@ -0,0 +1,118 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.recipe.model.RecipeImportResponse;
+import com.example.reciperestapi.recipe.model.RecipeImportResponse.ChunkResult;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Imports recipes from an NDJSON stream or a JSON array without holding the whole upload in
+ * memory. Recipes are read one at a time and persisted in fixed-size chunks, each in its own
+ * transaction, with the persistence context cleared in between.
+ */
+@Slf4j
+@Service
+public class RecipeImportService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectReader recipeReader;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public RecipeImportService(ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${recipe.import.chunk-size:500}") int chunkSize) {
+        requirePositive(chunkSize);
+        this.recipeReader = objectMapper.readerFor(Recipe.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public RecipeImportResponse importRecipes(InputStream body) {
+        return importRecipes(body, chunkSize);
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code chunkSize} is not positive
+     */
+    public RecipeImportResponse importRecipes(InputStream body, int chunkSize) {
+        requirePositive(chunkSize);
+        List<ChunkResult> chunks = new ArrayList<>();
+        List<Recipe> chunk = new ArrayList<>(chunkSize);
+        String error = null;
+
+        // readValues iterates the elements of a top-level array as well as a plain sequence of values
+        try (MappingIterator<Recipe> recipes = recipeReader.readValues(body)) {
+            while (recipes.hasNextValue()) {
+                chunk.add(recipes.nextValue());
+                if (chunk.size() == chunkSize) {
+                    chunks.add(persistChunk(chunks.size(), chunk));
+                    chunk.clear();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Chunks committed so far stay; the rest of the upload cannot be read reliably
+            error = "Could not read recipe " + (chunks.size() * chunkSize + chunk.size() + 1) + ": " + e.getMessage();
+            log.warn("Recipe import stopped: {}", error);
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(persistChunk(chunks.size(), chunk));
+        }
+
+        int imported = chunks.stream().mapToInt(ChunkResult::getImported).sum();
+        int received = chunks.stream().mapToInt(ChunkResult::getReceived).sum();
+        return RecipeImportResponse.builder()
+                .imported(imported)
+                .failed(received - imported)
+                .chunks(chunks)
+                .error(error)
+                .build();
+    }
+
+    // A chunk of zero would never fill up, and the whole upload would end up in one transaction
+    private static void requirePositive(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive, was " + chunkSize);
+        }
+    }
+
+    private ChunkResult persistChunk(int index, List<Recipe> recipes) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Recipe recipe : recipes) {
+                    // Imports always create new rows
+                    recipe.setId(null);
+                    if (recipe.getIngredients() != null) {
+                        recipe.getIngredients().forEach(ingredient -> ingredient.setId(null));
+                    }
+                    entityManager.persist(recipe);
+                }
+                // The request-scoped persistence context would otherwise keep every imported entity
+                entityManager.flush();
+                entityManager.clear();
+            });
+            log.info("Recipe import chunk {}: {} recipes imported", index, recipes.size());
+            return new ChunkResult(index, recipes.size(), recipes.size(), null);
+        } catch (RuntimeException e) {
+            log.warn("Recipe import chunk {} rolled back: {}", index, e.getMessage());
+            entityManager.clear();
+            return new ChunkResult(index, recipes.size(), 0, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.example.reciperestapi.recipe.config.RecipeOwnerResolver;
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.event.RecipeChange;
+import com.example.reciperestapi.recipe.event.RecipeChangesCommittedEvent;
+import com.example.reciperestapi.recipe.model.Ingredient;
+import com.example.reciperestapi.recipe.model.IngredientParser;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.recipe.model.RecipesByIngredientsResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Answers "which recipes use these ingredients?" from memory. For every canonical ingredient
+ * name (see {@link IngredientParser}) the index holds a {@link RecipeIdBitmap} of the recipes
+ * that use it, so a query is a few bitmap intersections, unions and differences instead of a
+ * join over every ingredient row. A bitmap per owner restricts the result to the signed-in
+ * user's recipes.
+ *
+ * The index is built on startup and kept current from {@link RecipeChangesCommittedEvent}s on a
+ * single background thread, as {@link RecipeSearchService} does: changed recipes are re-read and
+ * their entries replaced, usually within milliseconds of the commit. An update that fails is
+ * repaired by rebuilding the whole index, during which queries get 503. Writes made on another
+ * instance or with plain SQL are not seen until the next restart.
+ *
+ * Because the index lags the commit, its results carry no collection ETag.
+ */
+@Slf4j
+@Service
+public class RecipeIngredientIndex {
+
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final int REBUILD_PAGE_SIZE = 500;
+    private static final long REBUILD_RETRY_SECONDS = 30;
+
+    private final RecipeRepository recipeRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    // One writer thread: keeps index updates ordered and off the request threads
+    private final ScheduledExecutorService indexer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "recipe-ingredient-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Queries take the read lock for the bitmap operations only; the indexer takes the write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, RecipeIdBitmap> byIngredient = new HashMap<>();
+    private final Map<Long, RecipeIdBitmap> byOwner = new HashMap<>();
+    // What each recipe was indexed with, so its entries can be removed again
+    private final Map<Long, IndexedRecipe> indexed = new HashMap<>();
+
+    private volatile boolean ready;
+    // Only touched on the indexer thread
+    private boolean rebuildScheduled;
+
+    public RecipeIngredientIndex(RecipeRepository recipeRepository, PlatformTransactionManager transactionManager) {
+        this.recipeRepository = recipeRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @PreDestroy
+    void close() throws InterruptedException {
+        indexer.shutdown();
+        indexer.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        indexer.execute(this::rebuild);
+    }
+
+    @EventListener
+    public void onRecipesChanged(RecipeChangesCommittedEvent event) {
+        indexer.execute(() -> apply(event.getChanges()));
+    }
+
+    /**
+     * Recipes of the current owner that use every ingredient in {@code all}, at least one in
+     * {@code any} and none in {@code none}. Names are matched by their canonical form, so
+     * "Tomatoes" finds recipes that use "tomato".
+     * @param after Last id of the previous page, or null for the first page
+     * @param size Page size, capped at {@link #MAX_PAGE_SIZE}
+     * @throws ResponseStatusException 400 when neither {@code all} nor {@code any} names an
+     *         ingredient, 503 while the index is being built on startup
+     */
+    public RecipesByIngredientsResponse find(Collection<String> all, Collection<String> any,
+                                             Collection<String> none, Long after, int size) {
+        Set<String> required = canonicalNames(all);
+        Set<String> anyOf = canonicalNames(any);
+        Set<String> excluded = canonicalNames(none);
+        if (required.isEmpty() && anyOf.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Name at least one ingredient in all or any");
+        }
+        if (!ready) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The ingredient index is still being built");
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Long owner = RecipeOwnerResolver.currentOwner();
+
+        long total;
+        List<Long> ids;
+        lock.readLock().lock();
+        try {
+            // Bitmap operations return new bitmaps, so the index's own are never changed here
+            RecipeIdBitmap matches = null;
+            for (String name : required) {
+                RecipeIdBitmap recipes = recipesUsing(name);
+                matches = matches == null ? recipes : matches.and(recipes);
+            }
+            if (!anyOf.isEmpty()) {
+                RecipeIdBitmap union = new RecipeIdBitmap();
+                for (String name : anyOf) {
+                    union = union.or(recipesUsing(name));
+                }
+                matches = matches == null ? union : matches.and(union);
+            }
+            for (String name : excluded) {
+                matches = matches.andNot(recipesUsing(name));
+            }
+            if (!RecipeOwnerResolver.ALL_OWNERS.equals(owner)) {
+                matches = matches.and(byOwner.getOrDefault(owner, new RecipeIdBitmap()));
+            }
+            total = matches.cardinality();
+            ids = matches.idsAfter(after == null ? 0L : after, pageSize);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // The database has the final say on recipes the indexer has not caught up with
+        List<Recipe> recipes = ids.isEmpty() ? List.of() : recipeRepository.findAllWithIngredientsByIdIn(ids).stream()
+                .sorted(Comparator.comparing(Recipe::getId))
+                .toList();
+        return RecipesByIngredientsResponse.builder()
+                .total(total)
+                .recipes(recipes)
+                .nextCursor(ids.size() < pageSize ? null : ids.get(ids.size() - 1))
+                .build();
+    }
+
+    private RecipeIdBitmap recipesUsing(String canonicalName) {
+        RecipeIdBitmap recipes = byIngredient.get(canonicalName);
+        return recipes != null ? recipes : new RecipeIdBitmap();
+    }
+
+    private void apply(List<RecipeChange> changes) {
+        try {
+            Set<Long> toLoad = new HashSet<>();
+            for (RecipeChange change : changes) {
+                if (change.getType() != RecipeChange.Type.DELETED) {
+                    toLoad.add(change.getRecipeId());
+                }
+            }
+            Map<Long, IndexedRecipe> loaded = toLoad.isEmpty() ? Map.of() : readOnlyTransaction.execute(status ->
+                    recipeRepository.findAllWithIngredientsByIdIn(toLoad).stream()
+                            .map(IndexedRecipe::of)
+                            .collect(Collectors.toMap(IndexedRecipe::recipeId, Function.identity(), (a, b) -> a)));
+            lock.writeLock().lock();
+            try {
+                for (RecipeChange change : changes) {
+                    remove(change.getRecipeId());
+                    IndexedRecipe recipe = loaded.get(change.getRecipeId());
+                    // Missing when deleted again before we got to it
+                    if (recipe != null) {
+                        add(recipe);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to update the ingredient index for {} recipe changes, rebuilding it", changes.size(), e);
+            scheduleRebuild(0);
+        }
+    }
+
+    // Runs on the indexer thread, after the changes already queued
+    private void scheduleRebuild(long delaySeconds) {
+        if (rebuildScheduled) {
+            return;
+        }
+        rebuildScheduled = true;
+        indexer.schedule(this::rebuild, delaySeconds, TimeUnit.SECONDS);
+    }
+
+    private void rebuild() {
+        rebuildScheduled = false;
+        try {
+            lock.writeLock().lock();
+            try {
+                // Half-built results would be wrong, not just late
+                ready = false;
+                byIngredient.clear();
+                byOwner.clear();
+                indexed.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            long after = 0L;
+            int count = 0;
+            while (true) {
+                long cursor = after;
+                // Ingredients come in through @BatchSize while the page is turned into index entries
+                List<IndexedRecipe> page = readOnlyTransaction.execute(status ->
+                        recipeRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, REBUILD_PAGE_SIZE))
+                                .stream()
+                                .map(IndexedRecipe::of)
+                                .toList());
+                lock.writeLock().lock();
+                try {
+                    page.forEach(this::add);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                count += page.size();
+                if (page.size() < REBUILD_PAGE_SIZE) {
+                    break;
+                }
+                after = page.get(page.size() - 1).recipeId();
+            }
+            ready = true;
+            log.info("Ingredient index built with {} recipes and {} ingredients", count, byIngredient.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to build the ingredient index, retrying in {} seconds", REBUILD_RETRY_SECONDS, e);
+            scheduleRebuild(REBUILD_RETRY_SECONDS);
+        }
+    }
+
+    // Callers hold the write lock
+    private void add(IndexedRecipe recipe) {
+        for (String name : recipe.ingredients()) {
+            byIngredient.computeIfAbsent(name, key -> new RecipeIdBitmap()).add(recipe.recipeId());
+        }
+        if (recipe.ownerId() != null) {
+            byOwner.computeIfAbsent(recipe.ownerId(), key -> new RecipeIdBitmap()).add(recipe.recipeId());
+        }
+        indexed.put(recipe.recipeId(), recipe);
+    }
+
+    // Callers hold the write lock
+    private void remove(Long recipeId) {
+        IndexedRecipe recipe = indexed.remove(recipeId);
+        if (recipe == null) {
+            return;
+        }
+        for (String name : recipe.ingredients()) {
+            removeFrom(byIngredient, name, recipeId);
+        }
+        if (recipe.ownerId() != null) {
+            removeFrom(byOwner, recipe.ownerId(), recipeId);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, RecipeIdBitmap> bitmaps, K key, Long recipeId) {
+        RecipeIdBitmap bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.remove(recipeId);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> canonicalNames(Collection<String> names) {
+        Set<String> canonical = new LinkedHashSet<>();
+        if (names != null) {
+            names.stream().map(IngredientParser::canonicalName).filter(Objects::nonNull).forEach(canonical::add);
+        }
+        return canonical;
+    }
+
+    private record IndexedRecipe(Long recipeId, Long ownerId, String[] ingredients) {
+
+        static IndexedRecipe of(Recipe recipe) {
+            Set<String> names = new LinkedHashSet<>();
+            if (recipe.getIngredients() != null) {
+                for (Ingredient ingredient : recipe.getIngredients()) {
+                    // Rows stored before the column existed only have the name
+                    String name = ingredient.getCanonicalName() != null
+                            ? ingredient.getCanonicalName()
+                            : IngredientParser.canonicalName(ingredient.getName());
+                    if (name != null) {
+                        names.add(name);
+                    }
+                }
+            }
+            return new IndexedRecipe(recipe.getId(), recipe.getOwnerId(), names.toArray(String[]::new));
+        }
+    }
+}
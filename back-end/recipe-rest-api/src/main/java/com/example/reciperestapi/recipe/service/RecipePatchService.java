@@ -0,0 +1,96 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.recipe.model.RecipePatch;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies partial updates to many recipes in one transaction. Each patch is applied to the
+ * recipe's JSON form, and the result is copied onto the managed entity field by field and
+ * ingredient by ingredient. Only the columns and ingredient rows that actually changed are
+ * written.
+ *
+ * Every patch names the version it was made against. A recipe that has moved on since is
+ * refused with 409 and nothing in the batch is stored.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecipePatchService {
+
+    // Keeps IN lists well below the bind parameter limits of MySQL and H2
+    private static final int ID_CHUNK_SIZE = 500;
+
+    private final RecipeRepository recipeRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional
+    public List<Recipe> patch(List<RecipePatch> patches) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (RecipePatch patch : patches) {
+            if (patch.getId() == null || patch.getVersion() == null || patch.getPatch() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Every patch needs an id, a version and a patch");
+            }
+            if (!ids.add(patch.getId())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Recipe " + patch.getId() + " is patched more than once");
+            }
+        }
+        Map<Long, Recipe> recipes = load(ids);
+
+        List<Recipe> patched = new ArrayList<>(patches.size());
+        for (RecipePatch patch : patches) {
+            Recipe recipe = recipes.get(patch.getId());
+            if (recipe == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Recipe " + patch.getId() + " not found");
+            }
+            if (recipe.getVersion() != patch.getVersion()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Recipe " + patch.getId()
+                        + " is at version " + recipe.getVersion() + ", not " + patch.getVersion());
+            }
+            RecipeSyncService.applyContent(recipe, apply(recipe, patch));
+            patched.add(recipe);
+        }
+
+        // Write now so the returned recipes carry their new versions; a concurrent edit fails here
+        recipeRepository.flush();
+        return patched;
+    }
+
+    private Recipe apply(Recipe recipe, RecipePatch patch) {
+        JsonNode document = objectMapper.valueToTree(recipe);
+        try {
+            JsonNode result = patch.getPatch().isArray()
+                    ? JsonPatches.jsonPatch(document, patch.getPatch())
+                    : JsonPatches.mergePatch(document, patch.getPatch());
+            return objectMapper.treeToValue(result, Recipe.class);
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Patch for recipe " + patch.getId() + " cannot be applied: " + e.getMessage());
+        }
+    }
+
+    private Map<Long, Recipe> load(Set<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        Map<Long, Recipe> recipes = new HashMap<>();
+        for (int i = 0; i < all.size(); i += ID_CHUNK_SIZE) {
+            for (Recipe recipe : recipeRepository.findAllWithIngredientsByIdIn(all.subList(i, Math.min(i + ID_CHUNK_SIZE, all.size())))) {
+                recipes.put(recipe.getId(), recipe);
+            }
+        }
+        return recipes;
+    }
+}
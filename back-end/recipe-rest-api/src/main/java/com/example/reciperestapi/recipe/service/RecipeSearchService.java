@@ -0,0 +1,377 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.example.reciperestapi.recipe.config.RecipeOwnerResolver;
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.event.RecipeChange;
+import com.example.reciperestapi.recipe.event.RecipeChangesCommittedEvent;
+import com.example.reciperestapi.recipe.model.Ingredient;
+import com.example.reciperestapi.recipe.model.MealCategory;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.recipe.model.RecipeSearchHit;
+import com.example.reciperestapi.recipe.model.RecipeSearchResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text recipe search backed by a Lucene index on local disk.
+ *
+ * The index covers name, description, category and ingredient names. It is kept current from
+ * {@link RecipeChangesCommittedEvent}s: changed recipes are re-read and re-indexed on a single
+ * background thread, so writers never wait for the index and updates are applied in commit order.
+ * Searches see a change as soon as the index has been refreshed, usually within milliseconds;
+ * the index is committed to disk on a fixed schedule and on shutdown, and rebuilt on startup
+ * when it does not match the database.
+ *
+ * The index holds every owner's recipes; searches only match the signed-in user's. Indexing
+ * runs without a user, so it reads every recipe.
+ */
+@Slf4j
+@Service
+public class RecipeSearchService {
+
+    public static final int MAX_PAGE_SIZE = 100;
+    // Deep pages get expensive with score-sorted hits; nobody reads past this many results
+    static final int MAX_RESULT_WINDOW = 1000;
+    private static final int REBUILD_PAGE_SIZE = 500;
+
+    static final String ID = "id";
+    static final String NAME = "name";
+    static final String DESCRIPTION = "description";
+    static final String IMAGE_PATH = "imagePath";
+    static final String CATEGORY = "category";
+    static final String CATEGORY_TEXT = "categoryText";
+    static final String INGREDIENTS = "ingredients";
+    static final String OWNER = "owner";
+
+    // Field boosts: a hit in the name counts most, the long description least
+    private static final Map<String, Float> SEARCH_FIELDS = Map.of(
+            NAME, 3f,
+            INGREDIENTS, 2f,
+            CATEGORY_TEXT, 2f,
+            DESCRIPTION, 1f);
+
+    private final RecipeRepository recipeRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Path indexDir;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    // One writer thread: keeps index updates ordered and off the request threads
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "recipe-search-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    public RecipeSearchService(RecipeRepository recipeRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${recipe.search.index-dir:data/search-index}") Path indexDir) {
+        this.recipeRepository = recipeRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.indexDir = indexDir;
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        Files.createDirectories(indexDir);
+        directory = FSDirectory.open(indexDir);
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        writer = new IndexWriter(directory, config);
+        // Searchers read straight from the writer, so updates are visible before they are committed
+        searcherManager = new SearcherManager(writer, null);
+    }
+
+    @PreDestroy
+    void close() throws IOException, InterruptedException {
+        indexer.shutdown();
+        indexer.awaitTermination(10, TimeUnit.SECONDS);
+        searcherManager.close();
+        writer.close();
+        directory.close();
+        analyzer.close();
+    }
+
+    /**
+     * Rebuilds the index in the background when it was lost or missed writes while the
+     * application was down. Searches answer from the old index until the rebuild is done.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfStale() {
+        indexer.execute(() -> {
+            long recipes = recipeRepository.count();
+            if (writer.getDocStats().numDocs != recipes) {
+                log.info("Search index holds {} documents for {} recipes, rebuilding", writer.getDocStats().numDocs, recipes);
+                rebuild();
+            } else if (recipes > 0 && !hasOwners()) {
+                log.info("Search index was built before recipes had owners, rebuilding");
+                rebuild();
+            }
+        });
+    }
+
+    @EventListener
+    public void onRecipesChanged(RecipeChangesCommittedEvent event) {
+        indexer.execute(() -> apply(event.getChanges()));
+    }
+
+    // Make the index durable so a restart does not need a rebuild
+    @Scheduled(fixedDelayString = "${recipe.search.commit-interval-ms:10000}")
+    public void commit() throws IOException {
+        if (writer.hasUncommittedChanges()) {
+            writer.commit();
+        }
+    }
+
+    /**
+     * Ranked full-text search. Every word of the query must match one of the indexed fields;
+     * the last word also matches as a prefix, so results update while the user is typing.
+     * @param text Search text, analysed the same way as the indexed recipes
+     * @param page 0-based page number
+     * @param size Page size, capped at {@link #MAX_PAGE_SIZE}
+     */
+    public RecipeSearchResponse search(String text, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = Math.max(0, page);
+        int from = pageNumber * pageSize;
+        RecipeSearchResponse.RecipeSearchResponseBuilder response = RecipeSearchResponse.builder()
+                .query(text)
+                .page(pageNumber)
+                .size(pageSize)
+                .hits(List.of());
+
+        Query query = buildQuery(text);
+        if (query == null || from >= MAX_RESULT_WINDOW) {
+            return response.build();
+        }
+        Long owner = RecipeOwnerResolver.currentOwner();
+        if (!RecipeOwnerResolver.ALL_OWNERS.equals(owner)) {
+            // A filter clause does not affect scores, and Lucene caches it across searches
+            query = new BooleanQuery.Builder()
+                    .add(query, BooleanClause.Occur.MUST)
+                    .add(new TermQuery(new Term(OWNER, owner.toString())), BooleanClause.Occur.FILTER)
+                    .build();
+        }
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                int window = Math.min(from + pageSize, MAX_RESULT_WINDOW);
+                // Count every hit exactly instead of stopping at Lucene's default of 1000
+                TopScoreDocCollector collector = TopScoreDocCollector.create(window, Integer.MAX_VALUE);
+                searcher.search(query, collector);
+                TopDocs topDocs = collector.topDocs(from, window - from);
+
+                StoredFields storedFields = searcher.storedFields();
+                List<RecipeSearchHit> hits = new ArrayList<>(topDocs.scoreDocs.length);
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    hits.add(toHit(storedFields.document(scoreDoc.doc), scoreDoc.score));
+                }
+                return response.total(collector.getTotalHits()).hits(hits).build();
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    Query buildQuery(String text) {
+        List<String> terms = analyze(text == null ? "" : text);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (int i = 0; i < terms.size(); i++) {
+            boolean last = i == terms.size() - 1;
+            BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+            for (Map.Entry<String, Float> field : SEARCH_FIELDS.entrySet()) {
+                Term term = new Term(field.getKey(), terms.get(i));
+                Query match = last ? new PrefixQuery(term) : new TermQuery(term);
+                anyField.add(new BoostQuery(match, field.getValue()), BooleanClause.Occur.SHOULD);
+            }
+            query.add(anyField.build(), BooleanClause.Occur.MUST);
+        }
+        return query.build();
+    }
+
+    private boolean hasOwners() {
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                return searcher.getIndexReader().getDocCount(OWNER) > 0;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream tokens = analyzer.tokenStream(NAME, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken()) {
+                terms.add(term.toString());
+            }
+            tokens.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private void apply(List<RecipeChange> changes) {
+        try {
+            Set<Long> toLoad = new HashSet<>();
+            for (RecipeChange change : changes) {
+                if (change.getType() == RecipeChange.Type.DELETED) {
+                    writer.deleteDocuments(new Term(ID, change.getRecipeId().toString()));
+                } else {
+                    toLoad.add(change.getRecipeId());
+                }
+            }
+            if (!toLoad.isEmpty()) {
+                Map<Long, Recipe> recipes = readOnlyTransaction.execute(status ->
+                        recipeRepository.findAllWithIngredientsByIdIn(toLoad).stream()
+                                .collect(Collectors.toMap(Recipe::getId, Function.identity(), (a, b) -> a)));
+                for (Long id : toLoad) {
+                    Recipe recipe = recipes.get(id);
+                    if (recipe == null) {
+                        // Deleted again before we got to it
+                        writer.deleteDocuments(new Term(ID, id.toString()));
+                    } else {
+                        writer.updateDocument(new Term(ID, id.toString()), toDocument(recipe));
+                    }
+                }
+            }
+            searcherManager.maybeRefresh();
+        } catch (IOException | RuntimeException e) {
+            // The next startup rebuild repairs whatever was missed here
+            log.error("Failed to update the search index for {} recipe changes", changes.size(), e);
+        }
+    }
+
+    private void rebuild() {
+        try {
+            writer.deleteAll();
+            long after = 0L;
+            int indexed = 0;
+            while (true) {
+                long cursor = after;
+                List<Document> documents = readOnlyTransaction.execute(status ->
+                        recipeRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, REBUILD_PAGE_SIZE))
+                                .stream()
+                                .map(RecipeSearchService::toDocument)
+                                .toList());
+                writer.addDocuments(documents);
+                indexed += documents.size();
+                if (documents.size() < REBUILD_PAGE_SIZE) {
+                    break;
+                }
+                after = Long.parseLong(documents.get(documents.size() - 1).get(ID));
+            }
+            writer.commit();
+            searcherManager.maybeRefresh();
+            log.info("Search index rebuilt with {} recipes", indexed);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to rebuild the search index", e);
+        }
+    }
+
+    static Document toDocument(Recipe recipe) {
+        Document document = new Document();
+        document.add(new StringField(ID, recipe.getId().toString(), Field.Store.YES));
+        if (recipe.getOwnerId() != null) {
+            document.add(new StringField(OWNER, recipe.getOwnerId().toString(), Field.Store.NO));
+        }
+        if (recipe.getName() != null) {
+            document.add(new TextField(NAME, recipe.getName(), Field.Store.YES));
+        }
+        if (recipe.getDescription() != null) {
+            document.add(new TextField(DESCRIPTION, recipe.getDescription(), Field.Store.YES));
+        }
+        if (recipe.getImagePath() != null) {
+            document.add(new StoredField(IMAGE_PATH, recipe.getImagePath()));
+        }
+        if (recipe.getCategory() != null) {
+            document.add(new StringField(CATEGORY, recipe.getCategory().name(), Field.Store.YES));
+            document.add(new TextField(CATEGORY_TEXT, recipe.getCategory().name(), Field.Store.NO));
+        }
+        if (recipe.getIngredients() != null) {
+            for (Ingredient ingredient : recipe.getIngredients()) {
+                if (ingredient.getName() != null) {
+                    document.add(new TextField(INGREDIENTS, ingredient.getName(), Field.Store.NO));
+                }
+            }
+        }
+        return document;
+    }
+
+    private static RecipeSearchHit toHit(Document document, float score) {
+        String category = document.get(CATEGORY);
+        return RecipeSearchHit.builder()
+                .id(Long.valueOf(document.get(ID)))
+                .name(document.get(NAME))
+                .description(document.get(DESCRIPTION))
+                .imagePath(document.get(IMAGE_PATH))
+                .category(category == null ? null : MealCategory.valueOf(category))
+                .score(score)
+                .build();
+    }
+}
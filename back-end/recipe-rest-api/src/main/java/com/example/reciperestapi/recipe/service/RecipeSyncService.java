@@ -0,0 +1,206 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.event.RecipeAuditRecorder;
+import com.example.reciperestapi.recipe.event.RecipeChange;
+import com.example.reciperestapi.recipe.event.RecipeChangeSequence;
+import com.example.reciperestapi.recipe.event.RecipeChangeTracker;
+import com.example.reciperestapi.recipe.model.Ingredient;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.recipe.model.RecipeSyncResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Brings the stored recipes in line with a client's full recipe list by issuing only
+ * the inserts, updates and deletes that are actually needed.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecipeSyncService {
+
+    // Keeps IN lists well below the bind parameter limits of MySQL and H2
+    private static final int ID_CHUNK_SIZE = 500;
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeChangeTracker recipeChangeTracker;
+    private final RecipeAuditRecorder recipeAuditRecorder;
+    private final RecipeChangeSequence recipeChangeSequence;
+
+    @Transactional
+    public RecipeSyncResponse sync(List<Recipe> incoming) {
+        Set<Long> storedIds = new HashSet<>(recipeRepository.findAllIds());
+
+        // Only recipes the client refers to by id are candidates for an update
+        Set<Long> referencedIds = new HashSet<>();
+        for (Recipe recipe : incoming) {
+            if (recipe.getId() != null && storedIds.contains(recipe.getId())) {
+                referencedIds.add(recipe.getId());
+            }
+        }
+        Map<Long, Recipe> stored = loadWithIngredients(referencedIds);
+
+        List<Recipe> toInsert = new ArrayList<>();
+        Set<Long> kept = new HashSet<>();
+        int updated = 0;
+        int unchanged = 0;
+
+        for (Recipe recipe : incoming) {
+            Recipe current = recipe.getId() == null ? null : stored.get(recipe.getId());
+            if (current == null || !kept.add(current.getId())) {
+                // Unknown or repeated id: the client is describing a new recipe
+                recipe.setId(null);
+                toInsert.add(recipe);
+            } else if (contentHash(current).equals(contentHash(recipe))) {
+                unchanged++;
+            } else {
+                applyContent(current, recipe);
+                updated++;
+            }
+        }
+
+        Set<Long> toDelete = new HashSet<>(storedIds);
+        toDelete.removeAll(kept);
+        deleteAll(toDelete);
+
+        // New recipes are persisted as-is, so each submitted object ends up carrying its stored id
+        recipeRepository.saveAll(toInsert);
+        List<Long> ids = incoming.stream().map(Recipe::getId).toList();
+
+        return RecipeSyncResponse.builder()
+                .inserted(toInsert.size())
+                .updated(updated)
+                .deleted(toDelete.size())
+                .unchanged(unchanged)
+                .ids(ids)
+                .build();
+    }
+
+    private Map<Long, Recipe> loadWithIngredients(Collection<Long> ids) {
+        Map<Long, Recipe> recipes = new HashMap<>();
+        for (List<Long> chunk : chunks(ids)) {
+            for (Recipe recipe : recipeRepository.findAllWithIngredientsByIdIn(chunk)) {
+                recipes.put(recipe.getId(), recipe);
+            }
+        }
+        return recipes;
+    }
+
+    private void deleteAll(Collection<Long> ids) {
+        for (List<Long> chunk : chunks(ids)) {
+            recipeRepository.deleteIngredientsByRecipeIdIn(chunk);
+            recipeRepository.deleteAllByIdIn(chunk);
+            // Bulk deletes bypass Hibernate's entity events
+            recipeChangeTracker.record(chunk, RecipeChange.Type.DELETED);
+            recipeAuditRecorder.recordDeleted(chunk);
+            recipeChangeSequence.recordDeleted(chunk);
+        }
+    }
+
+    /**
+     * Copies the client's content onto a managed recipe. Ingredients are matched by id so
+     * unchanged rows are left alone and only edited, added or dropped ones hit the database.
+     */
+    static void applyContent(Recipe target, Recipe source) {
+        target.setName(source.getName());
+        target.setDescription(source.getDescription());
+        target.setImagePath(source.getImagePath());
+        target.setCategory(source.getCategory());
+
+        if (target.getIngredients() == null) {
+            target.setIngredients(new ArrayList<>());
+        }
+        List<Ingredient> sourceIngredients = source.getIngredients() == null ? List.of() : source.getIngredients();
+
+        Map<Long, Ingredient> existing = new HashMap<>();
+        for (Ingredient ingredient : target.getIngredients()) {
+            existing.put(ingredient.getId(), ingredient);
+        }
+
+        List<Ingredient> merged = new ArrayList<>(sourceIngredients.size());
+        for (Ingredient ingredient : sourceIngredients) {
+            Ingredient current = ingredient.getId() == null ? null : existing.remove(ingredient.getId());
+            if (current == null) {
+                merged.add(new Ingredient(null, ingredient.getName(), ingredient.getAmount()));
+            } else {
+                if (!Objects.equals(current.getName(), ingredient.getName())) {
+                    current.setName(ingredient.getName());
+                }
+                if (!Objects.equals(current.getAmount(), ingredient.getAmount())) {
+                    current.setAmount(ingredient.getAmount());
+                }
+                merged.add(current);
+            }
+        }
+
+        // Mutate the managed collection in place so orphan removal only touches dropped rows
+        target.getIngredients().retainAll(merged);
+        for (Ingredient ingredient : merged) {
+            if (ingredient.getId() == null) {
+                target.getIngredients().add(ingredient);
+            }
+        }
+    }
+
+    /**
+     * SHA-256 over the user-visible content of a recipe. Ids are left out and ingredients are
+     * sorted, so the same recipe resubmitted without ids or in another order hashes the same.
+     */
+    static String contentHash(Recipe recipe) {
+        StringBuilder content = new StringBuilder();
+        append(content, recipe.getName());
+        append(content, recipe.getDescription());
+        append(content, recipe.getImagePath());
+        append(content, recipe.getCategory() == null ? null : recipe.getCategory().name());
+
+        List<Ingredient> ingredients = recipe.getIngredients() == null
+                ? List.of()
+                : recipe.getIngredients().stream()
+                        .sorted(Comparator.comparing(Ingredient::getName, Comparator.nullsFirst(Comparator.naturalOrder()))
+                                .thenComparing(Ingredient::getAmount, Comparator.nullsFirst(Comparator.naturalOrder())))
+                        .toList();
+        for (Ingredient ingredient : ingredients) {
+            append(content, ingredient.getName());
+            append(content, ingredient.getAmount());
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void append(StringBuilder content, String value) {
+        // Length prefix keeps ("ab", "c") and ("a", "bc") apart; -1 marks null
+        content.append(value == null ? -1 : value.length()).append(':');
+        if (value != null) {
+            content.append(value);
+        }
+    }
+
+    private static List<List<Long>> chunks(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += ID_CHUNK_SIZE) {
+            chunks.add(all.subList(i, Math.min(i + ID_CHUNK_SIZE, all.size())));
+        }
+        return chunks;
+    }
+}
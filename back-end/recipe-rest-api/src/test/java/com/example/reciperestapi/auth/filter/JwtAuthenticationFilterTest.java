@@ -0,0 +1,71 @@
+package com.example.reciperestapi.auth.filter;
+
+import com.example.reciperestapi.auth.model.User;
+import com.example.reciperestapi.auth.repository.UserRepository;
+import com.example.reciperestapi.auth.service.JwtService;
+import com.example.reciperestapi.support.SqlStatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class JwtAuthenticationFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private User user;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        user = new User();
+        user.setEmail("filter@example.com");
+        user.setPassword("encodedPassword");
+        user = userRepository.save(user);
+        token = jwtService.generateToken(user);
+    }
+
+    @Test
+    void repeatRequests_ShouldNotQueryUsersAgain() throws Exception {
+        // Given the user was resolved once
+        mockMvc.perform(get("/api/batch/recipes/summaries").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        // When the same client calls again
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/api/batch/recipes/summaries").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        // Then only the collection ETag and the recipe query reach the database
+        assertEquals(2, SqlStatementCounter.count());
+    }
+
+    @Test
+    void deletedUser_ShouldBeEvictedAndRejected() throws Exception {
+        mockMvc.perform(get("/api/batch/recipes/summaries").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        userRepository.delete(user);
+
+        mockMvc.perform(get("/api/batch/recipes/summaries").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.reciperestapi.auth.filter;
+
+import com.example.reciperestapi.auth.model.AuthenticatedUser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private MeterRegistry meterRegistry;
+    private RateLimitFilter rateLimitFilter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("meterRegistry", meterRegistry);
+        ObjectProvider<MeterRegistry> registryProvider = beans.getBeanProvider(MeterRegistry.class);
+        // 2 sign-ins per address and 1 batch write per user an hour; the rest of the API is not limited
+        rateLimitFilter = new RateLimitFilter(true, 100,
+                2, Duration.ofHours(1),
+                1, Duration.ofHours(1),
+                0, Duration.ofHours(1),
+                registryProvider);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void signIns_ShouldBeLimitedPerAddress() throws Exception {
+        // Given
+        assertEquals(200, send("POST", "/api/auth/login", "10.0.0.1").getStatus());
+        assertEquals(200, send("POST", "/api/auth/signup", "10.0.0.1").getStatus());
+
+        // When
+        MockHttpServletResponse refused = send("POST", "/api/auth/login", "10.0.0.1");
+
+        // Then the client is told when to come back, and other addresses are not affected
+        assertEquals(429, refused.getStatus());
+        long retryAfter = Long.parseLong(refused.getHeader("Retry-After"));
+        assertTrue(retryAfter > 1700 && retryAfter <= 1800, "Retry-After was " + retryAfter);
+        assertEquals(200, send("POST", "/api/auth/login", "10.0.0.2").getStatus());
+        assertEquals(3.0, meterRegistry.get("rate.limit.requests").tag("group", "auth").tag("result", "allowed").counter().count());
+        assertEquals(1.0, meterRegistry.get("rate.limit.requests").tag("group", "auth").tag("result", "rejected").counter().count());
+    }
+
+    @Test
+    void batchWrites_ShouldBeLimitedPerUserWhateverTheAddress() throws Exception {
+        // Given
+        signIn(1001L);
+        assertEquals(200, send("POST", "/api/batch/recipes", "10.0.0.1").getStatus());
+
+        // When / Then the same user is refused from another address
+        assertEquals(429, send("PUT", "/api/recipes/sync", "10.0.0.2").getStatus());
+        // while reads and other users go through
+        assertEquals(200, send("GET", "/api/batch/recipes", "10.0.0.2").getStatus());
+        signIn(1002L);
+        assertEquals(200, send("PATCH", "/api/batch/recipes", "10.0.0.2").getStatus());
+    }
+
+    @Test
+    void disabledLimiter_ShouldLetEverythingThrough() throws Exception {
+        // Given
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        rateLimitFilter = new RateLimitFilter(false, 100, 1, Duration.ofHours(1), 1, Duration.ofHours(1),
+                1, Duration.ofHours(1), beans.getBeanProvider(MeterRegistry.class));
+
+        // When / Then
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, send("POST", "/api/auth/login", "10.0.0.1").getStatus());
+        }
+    }
+
+    private MockHttpServletResponse send(String method, String path, String address) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr(address);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static void signIn(Long userId) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new AuthenticatedUser(userId, userId + "@example.com"), null, List.of()));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.reciperestapi.auth.filter;
+
+import com.example.reciperestapi.auth.model.User;
+import com.example.reciperestapi.auth.service.JwtService;
+import com.example.reciperestapi.support.SqlStatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "auth.stateless=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StatelessJwtAuthenticationFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Test
+    void signedClaims_ShouldAuthenticateWithoutUserLookup() throws Exception {
+        // Given a valid token for a user id that is not even stored
+        User user = new User();
+        user.setId(4242L);
+        user.setEmail("stateless@example.com");
+        String token = jwtService.generateToken(user);
+
+        // When
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/api/batch/recipes/summaries").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        // Then the collection ETag and the recipe query are the only statements
+        assertEquals(2, SqlStatementCounter.count());
+    }
+}
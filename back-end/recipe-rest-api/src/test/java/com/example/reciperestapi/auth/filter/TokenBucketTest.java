@@ -0,0 +1,70 @@
+package com.example.reciperestapi.auth.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tryTake_ShouldAllowABurstThenRefillEvenly() {
+        // Given 3 tokens, one more every second, starting near the end of the nanoTime range
+        long start = Long.MAX_VALUE - 2 * SECOND;
+        TokenBucket bucket = new TokenBucket(3, SECOND, start);
+
+        // When / Then the burst is served at once
+        assertEquals(0, bucket.tryTake(start));
+        assertEquals(0, bucket.tryTake(start));
+        assertEquals(0, bucket.tryTake(start));
+        // and the next token is a second away
+        assertEquals(SECOND, bucket.tryTake(start));
+        assertEquals(SECOND / 4, bucket.tryTake(start + 3 * SECOND / 4));
+        // even once nanoTime has wrapped around
+        assertEquals(0, bucket.tryTake(start + SECOND));
+        assertEquals(SECOND, bucket.tryTake(start + SECOND));
+        // and an idle bucket never holds more than its capacity
+        long later = start + 60 * SECOND;
+        assertEquals(0, bucket.tryTake(later));
+        assertEquals(0, bucket.tryTake(later));
+        assertEquals(0, bucket.tryTake(later));
+        assertTrue(bucket.tryTake(later) > 0);
+    }
+
+    @Test
+    void tryTake_ShouldNeverHandOutMoreThanItHoldsUnderContention() throws Exception {
+        // Given
+        TokenBucket bucket = new TokenBucket(1000, TimeUnit.HOURS.toNanos(1), 0);
+        AtomicInteger taken = new AtomicInteger();
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+
+        // When 8 threads race for 8000 tokens at the same instant
+        try {
+            Future<?>[] results = new Future<?>[8];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = threads.submit(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        if (bucket.tryTake(0) == 0) {
+                            taken.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            for (Future<?> result : results) {
+                result.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        // Then
+        assertEquals(1000, taken.get());
+    }
+}
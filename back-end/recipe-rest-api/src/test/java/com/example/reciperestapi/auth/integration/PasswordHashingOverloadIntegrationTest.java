@@ -0,0 +1,52 @@
+package com.example.reciperestapi.auth.integration;
+
+import com.example.reciperestapi.auth.model.AuthRequest;
+import com.example.reciperestapi.auth.service.BoundedPasswordEncoder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// MockMvc never renders errors through /error, so status codes are checked on a real server
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "auth.bcrypt.strength=14",
+        "auth.password-hashing.threads=1",
+        "auth.password-hashing.queue-capacity=1"
+})
+@ActiveProfiles("test")
+class PasswordHashingOverloadIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void signup_WhenHashingPoolIsFull_ShouldReturn503() throws Exception {
+        // Given one password hashing and one waiting, with room for just those two
+        CompletableFuture<?> hashing = CompletableFuture.runAsync(() -> passwordEncoder.encode("busy"));
+        CompletableFuture<?> waiting = CompletableFuture.runAsync(() -> passwordEncoder.encode("busy"));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (((BoundedPasswordEncoder) passwordEncoder).inFlight() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // When
+        AuthRequest signup = new AuthRequest();
+        signup.setEmail("overload@example.com");
+        signup.setPassword("secret");
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/auth/signup", signup, String.class);
+
+        // Then the client sees the 503, not the 401 of an unauthenticated error page
+        assertEquals(503, response.getStatusCode().value());
+        CompletableFuture.allOf(hashing, waiting).get();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.reciperestapi.auth.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        encoder.destroy();
+    }
+
+    @Test
+    void encodeAndMatches_ShouldDelegate() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 2, 4);
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("wrong", hash));
+    }
+
+    @Test
+    void encode_WhenSaturated_ShouldRejectWith503() throws Exception {
+        // Given one hashing thread that is busy and one call waiting in the queue
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(new BlockingEncoder(release), 1, 1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (encoder.inFlight() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        // When a third call arrives, Then it fails at once
+        ResponseStatusException rejected = assertThrows(ResponseStatusException.class, () -> encoder.encode("c"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatusCode());
+
+        // And the accepted calls still complete
+        release.countDown();
+        assertEquals("hashed-a", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hashed-b", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    private record BlockingEncoder(CountDownLatch release) implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hashed-" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
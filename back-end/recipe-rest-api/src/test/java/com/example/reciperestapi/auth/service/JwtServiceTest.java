@@ -71,6 +71,30 @@ class JwtServiceTest {
         assertFalse(jwtService.isTokenValid(token, otherUser));
     }
 
+    @Test
+    void parseValidClaims_ShouldReturnClaimsOfValidToken() {
+        // Given
+        String token = jwtService.generateToken(testUser);
+
+        // When
+        Claims claims = jwtService.parseValidClaims(token).orElseThrow();
+
+        // Then
+        assertEquals("jwt@example.com", claims.getSubject());
+        assertEquals(1L, claims.get("userId", Long.class));
+    }
+
+    @Test
+    void parseValidClaims_WithTamperedToken_ShouldReturnEmpty() {
+        // Given a token whose signature no longer matches
+        String token = jwtService.generateToken(testUser);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        // When/Then
+        assertTrue(jwtService.parseValidClaims(tampered).isEmpty());
+        assertTrue(jwtService.parseValidClaims("not-a-token").isEmpty());
+    }
+
     @Test
     public void testGenerateToken() {
         // Create a test user
@@ -0,0 +1,92 @@
+package com.example.reciperestapi.auth.service;
+
+import com.example.reciperestapi.auth.model.User;
+import com.example.reciperestapi.auth.model.VerifiedToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class JwtTokenCacheTest {
+
+    private JwtService jwtService;
+    private MeterRegistry meterRegistry;
+    private JwtTokenCache jwtTokenCache;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        JwtService realJwtService = new JwtService();
+        ReflectionTestUtils.setField(realJwtService, "secretKeyString", "H2sFdOtF6LDSOytk4hKcNK+rR/ZGQxNLe/8FVZZXCCY=");
+        ReflectionTestUtils.setField(realJwtService, "expirationTime", 3_600_000L);
+        ReflectionTestUtils.invokeMethod(realJwtService, "init");
+        jwtService = spy(realJwtService);
+
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("meterRegistry", meterRegistry);
+        ObjectProvider<MeterRegistry> registryProvider = beans.getBeanProvider(MeterRegistry.class);
+        jwtTokenCache = new JwtTokenCache(jwtService, 100, registryProvider);
+
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("cache@example.com");
+        token = realJwtService.generateToken(user);
+    }
+
+    @Test
+    void verify_ShouldParseTokenOnlyOnce() {
+        // When the same token is presented three times
+        VerifiedToken first = jwtTokenCache.verify(token).orElseThrow();
+        jwtTokenCache.verify(token);
+        jwtTokenCache.verify(token);
+
+        // Then it was verified once and served from the cache afterwards
+        verify(jwtService, times(1)).parseValidClaims(token);
+        assertEquals("cache@example.com", first.getSubject());
+        assertEquals(7L, first.getUserId());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", "jwt.tokens").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "jwt.tokens").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void verify_WithInvalidToken_ShouldNotCacheIt() {
+        assertTrue(jwtTokenCache.verify("not-a-token").isEmpty());
+        assertTrue(jwtTokenCache.verify("not-a-token").isEmpty());
+
+        verify(jwtService, times(2)).parseValidClaims("not-a-token");
+    }
+
+    @Test
+    void invalidateSubject_ShouldForceVerificationAgain() {
+        // Given a cached token
+        jwtTokenCache.verify(token);
+
+        // When
+        jwtTokenCache.invalidateSubject("cache@example.com");
+        Optional<VerifiedToken> again = jwtTokenCache.verify(token);
+
+        // Then
+        assertTrue(again.isPresent());
+        verify(jwtService, times(2)).parseValidClaims(anyString());
+    }
+
+    @Test
+    void invalidate_ShouldOnlyDropThatToken() {
+        jwtTokenCache.verify(token);
+
+        jwtTokenCache.invalidate(token);
+        jwtTokenCache.verify(token);
+
+        verify(jwtService, times(2)).parseValidClaims(token);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.reciperestapi.auth.service;
+
+import com.example.reciperestapi.auth.model.User;
+import com.example.reciperestapi.auth.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserPrincipalCacheTest {
+
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void emailChange_ShouldEvictOnceCommitted() {
+        // Given a cached user
+        User user = new User();
+        user.setEmail("before@example.com");
+        user.setPassword("not used");
+        Long id = userRepository.save(user).getId();
+        assertTrue(userPrincipalCache.findByEmail("before@example.com").isPresent());
+
+        // When the email changes, and a request authenticates with the old one before the commit
+        transactionTemplate.executeWithoutResult(status -> {
+            User stored = userRepository.findById(id).orElseThrow();
+            stored.setEmail("after@example.com");
+            userRepository.flush();
+            assertTrue(CompletableFuture.supplyAsync(() -> userPrincipalCache.findByEmail("before@example.com")).join().isPresent());
+        });
+
+        // Then the old email no longer resolves after the commit
+        assertTrue(userPrincipalCache.findByEmail("before@example.com").isEmpty());
+        assertEquals(id, userPrincipalCache.findByEmail("after@example.com").orElseThrow().getId());
+    }
+}
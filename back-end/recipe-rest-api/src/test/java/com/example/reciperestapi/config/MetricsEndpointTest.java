@@ -0,0 +1,112 @@
+package com.example.reciperestapi.config;
+
+import com.example.reciperestapi.auth.model.User;
+import com.example.reciperestapi.auth.repository.UserRepository;
+import com.example.reciperestapi.auth.service.JwtService;
+import com.example.reciperestapi.recipe.model.MealCategory;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static com.example.reciperestapi.support.RecipeFixtures.recipe;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Actuator only listens on the management port, which needs a real server
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+// Tests normally get a no-op registry; this one checks what Prometheus would scrape
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void prometheus_ShouldExposeRequestAuthBatchPoolAndHibernateMeters() throws Exception {
+        // Given a signed-in client that reads twice and stores a batch of two recipes
+        User user = new User();
+        user.setEmail("metrics@example.com");
+        user.setPassword(passwordEncoder.encode("secret"));
+        user = userRepository.save(user);
+        String bearer = "Bearer " + jwtService.generateToken(user);
+        mockMvc.perform(get("/api/batch/recipes/summaries").header("Authorization", bearer))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/batch/recipes/summaries").header("Authorization", bearer))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/batch/recipes").header("Authorization", bearer)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                recipe("Soup", MealCategory.DINNER, "Salt"), recipe("Stew", MealCategory.DINNER, "Salt")))))
+                .andExpect(status().isCreated());
+
+        // When the scraper asks on the management port, without a token
+        ResponseEntity<String> response = restTemplate.getForEntity(management("/actuator/prometheus"), String.class);
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        String scrape = response.getBody();
+        assertNotNull(scrape);
+        assertTrue(scrape.contains(
+                "http_server_requests_seconds_bucket{application=\"recipe-rest-api\",error=\"none\",exception=\"none\","
+                        + "method=\"POST\",outcome=\"SUCCESS\",status=\"201\",uri=\"/api/batch/recipes\""));
+        assertTrue(scrape.contains("auth_token_validations_total{application=\"recipe-rest-api\",outcome=\"valid\",} 1.0"));
+        assertTrue(scrape.contains("auth_token_validations_total{application=\"recipe-rest-api\",outcome=\"cached\",} 2.0"));
+        assertTrue(scrape.contains("auth_authentication_seconds_count{application=\"recipe-rest-api\",outcome=\"authenticated\",} 3"));
+        assertTrue(scrape.contains("auth_password_hashing_seconds_count{application=\"recipe-rest-api\",operation=\"encode\",}"));
+        assertTrue(scrape.contains("recipe_batch_size_recipes_sum{application=\"recipe-rest-api\",operation=\"save\",} 2.0"));
+        assertTrue(scrape.contains("recipe_batch_write_seconds_bucket{application=\"recipe-rest-api\",operation=\"save\""));
+        assertTrue(scrape.contains("hikaricp_connections_pending{"));
+        assertTrue(scrape.contains("hibernate_statements_total{application=\"recipe-rest-api\",status=\"prepared\",}"));
+    }
+
+    @Test
+    void otherActuatorEndpoints_ShouldNeedAToken() {
+        assertEquals(401, restTemplate.getForEntity(management("/actuator/metrics"), String.class).getStatusCode().value());
+        assertEquals(200, restTemplate.getForEntity(management("/actuator/health"), String.class).getStatusCode().value());
+    }
+
+    @Test
+    void publicPort_ShouldNotServeActuator() {
+        assertEquals(401, restTemplate.getForEntity("/actuator/prometheus", String.class).getStatusCode().value());
+        assertEquals(401, restTemplate.getForEntity("/actuator/health", String.class).getStatusCode().value());
+    }
+
+    private String management(String path) {
+        return "http://localhost:" + managementPort + path;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.reciperestapi.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles({"test", "virtual-threads"})
+class VirtualThreadsProfileTest {
+
+    @Autowired
+    private AsyncTaskExecutor applicationTaskExecutor;
+
+    @Autowired(required = false)
+    private VirtualThreadPinningMonitor pinningMonitor;
+
+    @Test
+    void profile_ShouldRunTasksOnVirtualThreadsAndMonitorPinning() throws Exception {
+        boolean virtual = applicationTaskExecutor.submit(() -> Thread.currentThread().isVirtual())
+                .get(5, TimeUnit.SECONDS);
+
+        assertTrue(virtual);
+        assertNotNull(pinningMonitor);
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.reciperestapi.image.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithAnonymousUser;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser
+class ImageControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void uploadImage_ShouldStoreByContentHashOnce() throws Exception {
+        // Given
+        byte[] png = png(640, 480);
+
+        // When
+        JsonNode first = upload(png);
+        JsonNode second = upload(png);
+
+        // Then
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(png));
+        assertEquals(sha256, first.get("id").asText());
+        assertEquals(sha256, second.get("id").asText());
+        assertEquals(640, first.get("width").asInt());
+        assertEquals("/api/images/" + sha256 + "/thumbnail", first.get("thumbnail").asText());
+    }
+
+    @Test
+    void getThumbnail_ShouldBeScaledDownAndCachedForever() throws Exception {
+        // Given
+        JsonNode uploaded = upload(png(1600, 1200));
+
+        // When
+        MockHttpServletResponse response = awaitRendition(uploaded.get("thumbnail").asText());
+
+        // Then
+        assertEquals("image/jpeg", response.getContentType());
+        assertEquals("public, max-age=31536000, immutable", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(response.getContentAsByteArray()));
+        assertEquals(200, thumbnail.getWidth());
+        assertEquals(150, thumbnail.getHeight());
+    }
+
+    @Test
+    void getImage_WithRangeOrETag_ShouldAnswerPartiallyOrNotModified() throws Exception {
+        // Given
+        byte[] png = png(300, 300);
+        String url = upload(png).get("original").asText();
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // When / Then
+        MockHttpServletResponse partial = mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=10-109"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-109/" + png.length))
+                .andReturn().getResponse();
+        assertArrayEquals(Arrays.copyOfRange(png, 10, 110), partial.getContentAsByteArray());
+
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=" + png.length + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + png.length));
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void uploadImage_WithNonImage_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(multipart("/api/images")
+                        .file(new MockMultipartFile("file", "notes.txt", "text/plain", "not an image".getBytes())))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithAnonymousUser
+    void images_ShouldBeReadableButNotUploadableWithoutToken() throws Exception {
+        // Given
+        String url = upload(png(50, 50)).get("original").asText();
+
+        // When / Then
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        mockMvc.perform(multipart("/api/images")
+                        .file(new MockMultipartFile("file", "a.png", "image/png", png(60, 60))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    // Uploads as a signed-in user, also from tests running anonymously
+    private JsonNode upload(byte[] image) throws Exception {
+        String body = mockMvc.perform(multipart("/api/images")
+                        .file(new MockMultipartFile("file", "image.png", "image/png", image))
+                        .with(user("uploader")))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    // Renditions are drawn in the background; the original is served (uncached) until they exist
+    private MockHttpServletResponse awaitRendition(String url) throws Exception {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            MockHttpServletResponse response = mockMvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            if (!"no-cache".equals(response.getHeader(HttpHeaders.CACHE_CONTROL))) {
+                return response;
+            }
+            Thread.sleep(50);
+        }
+        return fail("Rendition " + url + " was not drawn");
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillRect(0, 0, width, height);
+        graphics.setColor(Color.BLUE);
+        // Differs per size, so every test uploads a different image
+        graphics.drawLine(0, 0, width - 1, height - 1);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
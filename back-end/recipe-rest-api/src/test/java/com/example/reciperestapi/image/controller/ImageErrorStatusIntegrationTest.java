@@ -0,0 +1,69 @@
+package com.example.reciperestapi.image.controller;
+
+import com.example.reciperestapi.auth.model.User;
+import com.example.reciperestapi.auth.repository.UserRepository;
+import com.example.reciperestapi.auth.service.JwtService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// MockMvc never renders errors through /error, so the statuses clients see are checked on a real server
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ImageErrorStatusIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Test
+    void getImage_WithUnknownIdAndNoToken_ShouldReturn404() {
+        // When
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/images/" + "0".repeat(64) + "/original", String.class);
+
+        // Then
+        assertEquals(404, response.getStatusCode().value());
+    }
+
+    @Test
+    void uploadImage_WithTextFile_ShouldReturn400() {
+        // Given
+        User user = new User();
+        user.setEmail("image-uploader@example.com");
+        user.setPassword("not used");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtService.generateToken(userRepository.save(user)));
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("file", new ByteArrayResource("not an image".getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public String getFilename() {
+                return "notes.txt";
+            }
+        });
+
+        // When
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/images", new HttpEntity<>(body, headers), String.class);
+
+        // Then
+        assertEquals(400, response.getStatusCode().value());
+    }
+}
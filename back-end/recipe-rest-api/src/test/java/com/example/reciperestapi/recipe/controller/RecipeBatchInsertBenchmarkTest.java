@@ -0,0 +1,89 @@
+package com.example.reciperestapi.recipe.controller;
+
+import com.example.reciperestapi.auth.model.AuthenticatedUser;
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.model.Ingredient;
+import com.example.reciperestapi.recipe.model.MealCategory;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.support.SqlStatementCounter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Measures the statements sent for one {@code POST /api/batch/recipes} request.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RecipeBatchInsertBenchmarkTest {
+
+    private static final int RECIPES = 1000;
+    private static final int INGREDIENTS_PER_RECIPE = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepository.deleteAll();
+    }
+
+    @Test
+    void saveRecipes_ShouldBatchInserts() throws Exception {
+        // Given
+        String body = objectMapper.writeValueAsString(recipes());
+
+        // When
+        SqlStatementCounter.reset();
+        mockMvc.perform(post("/api/batch/recipes")
+                .with(authentication(new UsernamePasswordAuthenticationToken(
+                        new AuthenticatedUser(1001L, "cook@example.com"), null, List.of())))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isCreated());
+        long statements = SqlStatementCounter.count();
+
+        // Then: a few batched INSERTs plus sequence calls, not one INSERT and UPDATE per row
+        assertEquals(RECIPES, recipeRepository.count());
+        assertTrue(statements < 50, "Expected batched inserts but got " + statements + " statements");
+    }
+
+    private static List<Recipe> recipes() {
+        List<Recipe> recipes = new ArrayList<>(RECIPES);
+        for (int i = 0; i < RECIPES; i++) {
+            List<Ingredient> ingredients = new ArrayList<>(INGREDIENTS_PER_RECIPE);
+            for (int j = 0; j < INGREDIENTS_PER_RECIPE; j++) {
+                ingredients.add(new Ingredient(null, "Ingredient " + j, j + "g"));
+            }
+            Recipe recipe = new Recipe();
+            recipe.setName("Recipe " + i);
+            recipe.setDescription("Description " + i);
+            recipe.setCategory(MealCategory.values()[i % MealCategory.values().length]);
+            recipe.setIngredients(ingredients);
+            recipes.add(recipe);
+        }
+        return recipes;
+    }
+}
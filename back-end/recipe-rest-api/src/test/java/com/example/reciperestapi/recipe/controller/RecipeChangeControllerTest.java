@@ -0,0 +1,161 @@
+package com.example.reciperestapi.recipe.controller;
+
+import com.example.reciperestapi.auth.model.AuthenticatedUser;
+import com.example.reciperestapi.auth.model.User;
+import com.example.reciperestapi.auth.repository.UserRepository;
+import com.example.reciperestapi.auth.service.JwtService;
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.model.MealCategory;
+import com.example.reciperestapi.recipe.model.Recipe;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.example.reciperestapi.support.RecipeFixtures.recipe;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RecipeChangeControllerTest {
+
+    private static final String CHANGES = "/api/recipes/changes";
+    private static final String STREAM = "/api/recipes/changes/stream";
+    // Streams only carry the subscriber's own recipes, which the tests save for this user directly
+    private static final Long COOK_ID = 1001L;
+    private static final RequestPostProcessor COOK = authentication(new UsernamePasswordAuthenticationToken(
+            new AuthenticatedUser(COOK_ID, "cook@example.com"), null, List.of()));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Test
+    void stream_ShouldPushCommittedChanges() throws Exception {
+        // Given
+        MockHttpServletResponse stream = open(mockMvc.perform(get(STREAM).with(COOK)).andReturn());
+
+        // When
+        Recipe soup = recipeRepository.save(cooksRecipe("Soup"));
+        soup.setName("Tomato soup");
+        recipeRepository.save(soup);
+
+        // Then
+        String body = await(stream, content -> content.contains("\"version\":1"));
+        assertTrue(body.contains("event:recipe"));
+        assertTrue(body.contains("{\"recipeId\":" + soup.getId() + ",\"type\":\"CREATED\",\"version\":0}"));
+        assertTrue(body.contains("{\"recipeId\":" + soup.getId() + ",\"type\":\"UPDATED\",\"version\":1}"));
+    }
+
+    @Test
+    void stream_WithLastEventId_ShouldResumeAfterIt() throws Exception {
+        // Given a client that saw the first of two changes
+        MockHttpServletResponse first = open(mockMvc.perform(get(STREAM).with(COOK)).andReturn());
+        Recipe cake = recipeRepository.save(cooksRecipe("Cake"));
+        Recipe pie = recipeRepository.save(cooksRecipe("Pie"));
+        String body = await(first, content -> content.contains("\"recipeId\":" + pie.getId() + ","));
+        Matcher cakeEvent = Pattern.compile("id:(\\S+)\nevent:recipe\ndata:\\{\"recipeId\":" + cake.getId() + ",").matcher(body);
+        assertTrue(cakeEvent.find());
+
+        // When it reconnects
+        MockHttpServletResponse resumed = open(mockMvc.perform(get(STREAM).with(COOK).header("Last-Event-ID", cakeEvent.group(1))).andReturn());
+
+        // Then only the change after it is sent again
+        String replayed = await(resumed, content -> content.contains("\"recipeId\":" + pie.getId() + ","));
+        assertFalse(replayed.contains("\"recipeId\":" + cake.getId() + ","));
+    }
+
+    @Test
+    @WithMockUser
+    void stream_WithUnknownLastEventId_ShouldSendReset() throws Exception {
+        MockHttpServletResponse stream = open(mockMvc.perform(get(STREAM).header("Last-Event-ID", "before-restart-42")).andReturn());
+
+        assertTrue(await(stream, content -> content.contains("event:reset")).contains("event:reset"));
+    }
+
+    @Test
+    void stream_ShouldAcceptTokenAsQueryParameterOnly() throws Exception {
+        // Given
+        User user = new User();
+        user.setEmail("stream@example.com");
+        user.setPassword("encodedPassword");
+        String token = jwtService.generateToken(userRepository.save(user));
+
+        // When / Then
+        mockMvc.perform(get(STREAM).param("access_token", token))
+                .andExpect(request().asyncStarted());
+        mockMvc.perform(get(STREAM))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/batch/recipes/summaries").param("access_token", token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void changes_ShouldReturnRecipesWrittenSinceTheGivenSequenceNumber() throws Exception {
+        // Given
+        Recipe soup = recipeRepository.save(cooksRecipe("Soup"));
+        Recipe cake = recipeRepository.save(cooksRecipe("Cake"));
+
+        // When
+        mockMvc.perform(get(CHANGES).with(COOK).param("since", Long.toString(soup.getChangeSeq())))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed.length()").value(1))
+                .andExpect(jsonPath("$.changed[0].id").value(cake.getId()))
+                .andExpect(jsonPath("$.changed[0].changeSeq").value(cake.getChangeSeq()))
+                .andExpect(jsonPath("$.deleted").isEmpty())
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    private static MockHttpServletResponse open(MvcResult result) {
+        assertTrue(result.getRequest().isAsyncStarted());
+        return result.getResponse();
+    }
+
+    // Events are sent from the feed's own threads
+    private static String await(MockHttpServletResponse stream, Predicate<String> condition) throws Exception {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            String content = stream.getContentAsString();
+            if (condition.test(content)) {
+                return content;
+            }
+            Thread.sleep(50);
+        }
+        return fail("Expected event not received: " + stream.getContentAsString());
+    }
+
+    private static Recipe cooksRecipe(String name) {
+        Recipe recipe = recipe(name, MealCategory.DINNER);
+        recipe.setOwnerId(COOK_ID);
+        return recipe;
+    }
+}
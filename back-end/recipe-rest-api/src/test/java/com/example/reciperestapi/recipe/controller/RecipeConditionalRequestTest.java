@@ -0,0 +1,181 @@
+package com.example.reciperestapi.recipe.controller;
+
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.recipe.service.RecipeCollectionVersion;
+import com.example.reciperestapi.recipe.service.RecipeSyncService;
+import com.example.reciperestapi.support.SqlStatementCounter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static com.example.reciperestapi.support.RecipeFixtures.recipe;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser
+class RecipeConditionalRequestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RecipeSyncService recipeSyncService;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepository.deleteAll();
+    }
+
+    @Test
+    void getAllRecipes_WithCurrentETag_ShouldAnswer304WithoutLoadingRecipes() throws Exception {
+        // Given
+        recipeRepository.save(recipe("Soup", "Water"));
+        String etag = mockMvc.perform(get("/api/batch/recipes"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        // When
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/api/batch/recipes").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        // Then only the sum of the change sequence numbers was read
+        assertEquals(1, SqlStatementCounter.count());
+    }
+
+    @Test
+    void collectionETag_ShouldChangeOnAnyWrite() throws Exception {
+        // Given
+        String etag = mockMvc.perform(get("/api/recipes"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // When a recipe is added through the batch endpoint
+        mockMvc.perform(post("/api/batch/recipes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(recipe("Cake", "Water")))))
+                .andExpect(status().isCreated());
+
+        // Then the old ETag no longer matches, on any list
+        String newEtag = mockMvc.perform(get("/api/recipes").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.recipes.length()").value(1))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, newEtag);
+        mockMvc.perform(get("/api/recipes/search/findByNameContainingIgnoreCase").param("name", "cake")
+                        .header(HttpHeaders.IF_NONE_MATCH, newEtag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void collectionETag_ShouldChangeWhenARecipeIsDeleted() throws Exception {
+        // Given
+        Recipe soup = recipeRepository.save(recipe("Soup", "Water"));
+        recipeRepository.save(recipe("Cake", "Water"));
+        String etag = mockMvc.perform(get("/api/batch/recipes"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // When
+        recipeRepository.delete(soup);
+
+        // Then
+        mockMvc.perform(get("/api/batch/recipes").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void collectionETag_ShouldBeTheSameOnEveryInstance() throws Exception {
+        // Given
+        recipeRepository.save(recipe("Soup", "Water"));
+
+        // When another instance, which has applied none of this one's commits, works it out
+        RecipeCollectionVersion otherInstance = new RecipeCollectionVersion(recipeRepository);
+        String etag = otherInstance.etag();
+
+        // Then
+        mockMvc.perform(get("/api/batch/recipes").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void recipeItem_ShouldUseVersionAsETag() throws Exception {
+        // Given
+        Recipe soup = recipeRepository.save(recipe("Soup", "Water"));
+        String etag = mockMvc.perform(get("/api/recipes/" + soup.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Then
+        mockMvc.perform(get("/api/recipes/" + soup.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void ingredientOnlyEdit_ShouldRaiseRecipeVersion() throws Exception {
+        // Given
+        Recipe soup = recipeRepository.save(recipe("Soup", "Water"));
+        mockMvc.perform(get("/api/recipes/" + soup.getId())).andExpect(status().isOk());
+
+        // When only an ingredient's amount changes, through the batch endpoint
+        Recipe edited = recipeRepository.findAllWithIngredientsByIdIn(List.of(soup.getId())).get(0);
+        edited.getIngredients().get(0).setAmount("2l");
+        mockMvc.perform(put("/api/batch/recipes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(edited))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$[0].version").value(1));
+
+        // Then the cached recipe's ETag moves on
+        mockMvc.perform(get("/api/recipes/" + soup.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.ingredients[0].amount").value("2l"));
+    }
+
+    @Test
+    void syncIngredientEdit_ShouldRaiseRecipeVersion() {
+        // Given
+        Recipe soup = recipeRepository.save(recipe("Soup", "Water"));
+
+        // When
+        Recipe edited = recipeRepository.findAllWithIngredientsByIdIn(List.of(soup.getId())).get(0);
+        edited.getIngredients().get(0).setName("Broth");
+        recipeSyncService.sync(List.of(edited));
+
+        // Then
+        assertEquals(1, recipeRepository.findAllWithIngredientsByIdIn(List.of(soup.getId())).get(0).getVersion());
+    }
+}
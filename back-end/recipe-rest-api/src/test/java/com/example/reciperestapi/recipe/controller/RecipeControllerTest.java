@@ -0,0 +1,207 @@
+package com.example.reciperestapi.recipe.controller;
+
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.model.MealCategory;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.support.SqlStatementCounter;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.reciperestapi.support.RecipeFixtures.recipe;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser
+class RecipeControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepository.deleteAll();
+    }
+
+    @Test
+    void syncRecipes_ShouldReturnCounts() throws Exception {
+        // Given one stored recipe
+        Recipe stored = recipeRepository.save(recipe("Pancakes", MealCategory.BREAKFAST, "Flour"));
+
+        // When the client sends it back unchanged together with a new one
+        Recipe same = recipe("Pancakes", MealCategory.BREAKFAST, "Flour");
+        same.setId(stored.getId());
+
+        mockMvc.perform(put("/api/recipes/sync")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(same, recipe("Waffles", MealCategory.BREAKFAST, "Flour")))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(1))
+                .andExpect(jsonPath("$.updated").value(0))
+                .andExpect(jsonPath("$.deleted").value(0))
+                .andExpect(jsonPath("$.unchanged").value(1))
+                .andExpect(jsonPath("$.ids[0]").value(stored.getId()));
+
+        // Then
+        assertEquals(2, recipeRepository.count());
+    }
+
+    @Test
+    void saveRecipes_WithTooManyRecipes_ShouldBeRejectedBeforeWriting() throws Exception {
+        mockMvc.perform(post("/api/batch/recipes")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(recipes(1001))))
+                .andExpect(status().isPayloadTooLarge());
+
+        assertEquals(0, recipeRepository.count());
+    }
+
+    @Test
+    void exportRecipes_ShouldStreamEveryRecipe() throws Exception {
+        // Given more recipes than fit in one export group
+        recipeRepository.saveAll(recipes(250));
+
+        // When
+        MvcResult started = mockMvc.perform(get("/api/batch/recipes/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(250))
+                .andExpect(jsonPath("$[249].ingredients[0].name").value("Flour"));
+    }
+
+    @Test
+    void getRecipePage_ShouldFollowCursorAndBatchLoadIngredients() throws Exception {
+        // Given
+        recipeRepository.saveAll(recipes(120));
+
+        // When the first page is requested with nothing in the second-level cache
+        entityManagerFactory.getCache().evictAll();
+        SqlStatementCounter.reset();
+        MvcResult first = mockMvc.perform(get("/api/batch/recipes/page").param("size", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recipes.length()").value(100))
+                .andExpect(jsonPath("$.recipes[99].ingredients[0].name").value("Flour"))
+                .andReturn();
+
+        // Then one query for the recipes and one for all their ingredients
+        assertEquals(2, SqlStatementCounter.count());
+
+        // And the cursor leads to the remaining recipes
+        Long cursor = objectMapper.readTree(first.getResponse().getContentAsString()).get("nextCursor").asLong();
+        mockMvc.perform(get("/api/batch/recipes/page").param("after", cursor.toString()).param("size", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recipes.length()").value(20))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void patchRecipes_ShouldApplyPatchesAndRefuseStaleOnes() throws Exception {
+        // Given
+        Recipe soup = recipeRepository.save(recipe("Soup", MealCategory.BREAKFAST, "Flour"));
+        String body = "[{\"id\": " + soup.getId() + ", \"version\": 0, \"patch\": {\"name\": \"Tomato soup\"}}]";
+
+        // When the same patch is sent twice
+        mockMvc.perform(patch("/api/batch/recipes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Tomato soup"))
+                .andExpect(jsonPath("$[0].version").value(1));
+
+        // Then the second one was made against an old version
+        mockMvc.perform(patch("/api/batch/recipes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void updateRecipes_WithStaleVersion_ShouldReturnConflict() throws Exception {
+        // Given a recipe that was edited after the client read it
+        Recipe read = recipeRepository.save(recipe("Soup", MealCategory.BREAKFAST, "Flour"));
+        Recipe current = recipeRepository.findAllWithIngredientsByIdIn(List.of(read.getId())).get(0);
+        current.setName("Tomato soup");
+        recipeRepository.save(current);
+
+        // When the client saves its copy
+        read.setName("Pumpkin soup");
+        mockMvc.perform(put("/api/batch/recipes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(read))))
+                .andExpect(status().isConflict());
+
+        // Then
+        assertEquals("Tomato soup", recipeRepository.findById(read.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void batchRecipes_ShouldReadAndWriteSmile() throws Exception {
+        // Given
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+        ObjectMapper smileMapper = new SmileMapper();
+
+        // When recipes are posted and listed as Smile
+        mockMvc.perform(post("/api/batch/recipes")
+                        .contentType(smile)
+                        .accept(smile)
+                        .content(smileMapper.writeValueAsBytes(recipes(3))))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(smile));
+        byte[] body = mockMvc.perform(get("/api/batch/recipes").accept(smile))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(smile))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Then
+        List<Recipe> listed = smileMapper.readValue(body, new TypeReference<>() {
+        });
+        assertEquals(3, listed.size());
+        assertEquals("Flour", listed.get(2).getIngredients().get(0).getName());
+    }
+
+    private static List<Recipe> recipes(int count) {
+        List<Recipe> recipes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            recipes.add(recipe("Recipe " + i, MealCategory.BREAKFAST, "Flour"));
+        }
+        return recipes;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.reciperestapi.recipe.controller;
+
+import com.example.reciperestapi.auth.model.User;
+import com.example.reciperestapi.auth.repository.UserRepository;
+import com.example.reciperestapi.auth.service.JwtService;
+import com.example.reciperestapi.recipe.model.MealCategory;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.recipe.model.RecipePatch;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.UUID;
+
+import static com.example.reciperestapi.support.RecipeFixtures.recipe;
+import static org.junit.jupiter.api.Assertions.*;
+
+// MockMvc never renders errors through /error, so the statuses clients see are checked on a real server
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "recipe.batch.max-size=2",
+        "recipe.changes.max-subscribers=1"
+})
+@ActiveProfiles("test")
+class RecipeErrorStatusIntegrationTest {
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("not used");
+        token = jwtService.generateToken(userRepository.save(user));
+    }
+
+    @Test
+    void patchRecipes_ShouldReturn400And404And409() throws Exception {
+        // Given
+        Recipe soup = save(recipe("Soup", MealCategory.DINNER, "Salt")).get(0);
+
+        // When / Then a patch without a version is malformed
+        assertEquals(400, send("PATCH", "/api/batch/recipes",
+                List.of(new RecipePatch(soup.getId(), null, objectMapper.readTree("{\"name\":\"Broth\"}")))).statusCode());
+        // and an unknown recipe is not found
+        assertEquals(404, send("PATCH", "/api/batch/recipes",
+                List.of(new RecipePatch(Long.MAX_VALUE, 0L, objectMapper.readTree("{\"name\":\"Broth\"}")))).statusCode());
+        // and a patch against an old version conflicts
+        assertEquals(200, send("PATCH", "/api/batch/recipes",
+                List.of(new RecipePatch(soup.getId(), soup.getVersion(), objectMapper.readTree("{\"name\":\"Broth\"}")))).statusCode());
+        HttpResponse<String> stale = send("PATCH", "/api/batch/recipes",
+                List.of(new RecipePatch(soup.getId(), soup.getVersion(), objectMapper.readTree("{\"name\":\"Stock\"}"))));
+        assertEquals(409, stale.statusCode());
+    }
+
+    @Test
+    void saveRecipes_WithTooManyRecipes_ShouldReturn413() throws Exception {
+        // When
+        HttpResponse<String> response = send("POST", "/api/batch/recipes", List.of(recipe("A", MealCategory.DINNER, "Salt"),
+                recipe("B", MealCategory.DINNER, "Salt"), recipe("C", MealCategory.DINNER, "Salt")));
+
+        // Then
+        assertEquals(413, response.statusCode());
+    }
+
+    @Test
+    void findByIngredients_WithoutIngredients_ShouldReturn400() throws Exception {
+        // When only excluded ingredients are named
+        HttpResponse<String> response = send("GET", "/api/recipes/by-ingredients?none=salt", null);
+
+        // Then
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    void subscribe_WhenNoStreamsAreLeft_ShouldReturn503() throws Exception {
+        // Given the only stream allowed is open
+        HttpResponse<InputStream> open = httpClient.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/recipes/changes/stream"))
+                .header("Authorization", "Bearer " + token)
+                .build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, open.statusCode());
+
+        try (InputStream ignored = open.body()) {
+            // When
+            HttpResponse<String> response = send("GET", "/api/recipes/changes/stream", null);
+
+            // Then
+            assertEquals(503, response.statusCode());
+        }
+    }
+
+    private List<Recipe> save(Recipe... recipes) throws Exception {
+        HttpResponse<String> response = send("POST", "/api/batch/recipes", List.of(recipes));
+        assertEquals(201, response.statusCode());
+        return List.of(objectMapper.readValue(response.body(), Recipe[].class));
+    }
+
+    private HttpResponse<String> send(String method, String path, Object body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + token);
+        if (body == null) {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        } else {
+            request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.reciperestapi.recipe.controller;
+
+import com.example.reciperestapi.auth.model.AuthenticatedUser;
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.event.RecipeChange;
+import com.example.reciperestapi.recipe.event.RecipeChangesCommittedEvent;
+import com.example.reciperestapi.recipe.model.MealCategory;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.recipe.service.RecipeCategoryFacets;
+import com.example.reciperestapi.support.SqlStatementCounter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.util.List;
+
+import static com.example.reciperestapi.support.RecipeFixtures.recipe;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RecipeFacetControllerTest {
+
+    private static final RequestPostProcessor ALICE = user(1001L, "alice@example.com");
+    private static final RequestPostProcessor BOB = user(1002L, "bob@example.com");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RecipeCategoryFacets recipeCategoryFacets;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepository.deleteAll();
+    }
+
+    @Test
+    void getFacets_ShouldFilterByCategoryAndNameAndCountEveryCategory() throws Exception {
+        // Given
+        List<Recipe> saved = save(ALICE,
+                recipe("Pancakes", MealCategory.BREAKFAST, "Salt"),
+                recipe("Tomato soup", MealCategory.LUNCH, "Salt"),
+                recipe("Onion soup", MealCategory.DINNER, "Salt"),
+                recipe("Steak", MealCategory.DINNER, "Salt"),
+                recipe("Soup of the day", (MealCategory) null, "Salt"));
+        save(BOB, recipe("Fish soup", MealCategory.DINNER, "Salt"));
+
+        // When / Then counts cover every category, whichever are listed
+        mockMvc.perform(get("/api/recipes/facets").param("category", "DINNER").with(ALICE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.recipes[*].name", contains("Onion soup", "Steak")))
+                .andExpect(jsonPath("$.counts.BREAKFAST").value(1))
+                .andExpect(jsonPath("$.counts.LUNCH").value(1))
+                .andExpect(jsonPath("$.counts.DINNER").value(2))
+                .andExpect(jsonPath("$.counts.DESSERT").value(0))
+                .andExpect(jsonPath("$.uncategorized").value(1));
+        // and follow the name filter
+        mockMvc.perform(get("/api/recipes/facets").param("category", "LUNCH,DINNER").param("name", "SOUP").with(ALICE))
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.recipes[*].name", contains("Tomato soup", "Onion soup")))
+                .andExpect(jsonPath("$.counts.BREAKFAST").value(0))
+                .andExpect(jsonPath("$.counts.DINNER").value(1))
+                .andExpect(jsonPath("$.uncategorized").value(1));
+        // and without a category every recipe is listed
+        mockMvc.perform(get("/api/recipes/facets").param("name", "soup").with(ALICE))
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.recipes[*].id", contains(saved.get(1).getId().intValue(),
+                        saved.get(2).getId().intValue(), saved.get(4).getId().intValue())));
+    }
+
+    @Test
+    void getFacets_ShouldPageAcrossCategoriesInIdOrder() throws Exception {
+        // Given
+        List<Recipe> saved = save(ALICE,
+                recipe("Toast", MealCategory.BREAKFAST, "Salt"),
+                recipe("Salad", MealCategory.LUNCH, "Salt"),
+                recipe("Eggs", MealCategory.BREAKFAST, "Salt"),
+                recipe("Sandwich", MealCategory.LUNCH, "Salt"),
+                recipe("Curry", MealCategory.DINNER, "Salt"));
+
+        // When
+        String first = mockMvc.perform(get("/api/recipes/facets").param("category", "BREAKFAST,LUNCH")
+                        .param("size", "3").with(ALICE))
+                .andExpect(jsonPath("$.recipes[*].name", contains("Toast", "Salad", "Eggs")))
+                .andReturn().getResponse().getContentAsString();
+        long cursor = objectMapper.readTree(first).get("nextCursor").asLong();
+
+        // Then
+        assertEquals(saved.get(2).getId(), cursor);
+        mockMvc.perform(get("/api/recipes/facets").param("category", "BREAKFAST,LUNCH")
+                        .param("size", "3").param("after", String.valueOf(cursor)).with(ALICE))
+                .andExpect(jsonPath("$.recipes[*].name", contains("Sandwich")))
+                .andExpect(jsonPath("$.total").value(4))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void counts_ShouldFollowWritesWithoutQueryingTheTable() throws Exception {
+        // Given
+        List<Recipe> saved = save(ALICE, recipe("Porridge", MealCategory.BREAKFAST, "Salt"),
+                recipe("Pie", MealCategory.DESSERT, "Salt"));
+
+        // When the porridge moves to dinner and the pie is replaced
+        Recipe porridge = saved.get(0);
+        porridge.setCategory(MealCategory.DINNER);
+        mockMvc.perform(put("/api/batch/recipes").with(ALICE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(porridge))))
+                .andExpect(status().isCreated());
+        recipeRepository.deleteById(saved.get(1).getId());
+
+        // Then the counts are current as soon as the writes return, and reading them only reads the ETag
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/api/recipes/facets").param("category", "BREAKFAST").with(ALICE))
+                .andExpect(jsonPath("$.total").value(0))
+                .andExpect(jsonPath("$.counts.DINNER").value(1))
+                .andExpect(jsonPath("$.counts.DESSERT").value(0));
+        assertEquals(1, SqlStatementCounter.count());
+    }
+
+    @Test
+    void counts_ShouldKeepTheNewestVersionWhenEventsArriveOutOfOrder() throws Exception {
+        // Given
+        Recipe stew = save(ALICE, recipe("Stew", MealCategory.LUNCH, "Salt")).get(0);
+        long version = stew.getVersion();
+
+        // When the events of two later commits arrive newest first
+        recipeCategoryFacets.onRecipesChanged(changed(stew, version + 2, MealCategory.DINNER, "Beef stew"));
+        recipeCategoryFacets.onRecipesChanged(changed(stew, version + 1, MealCategory.BREAKFAST, "Stew"));
+
+        // Then the older one is ignored
+        mockMvc.perform(get("/api/recipes/facets").param("category", "DINNER").with(ALICE))
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.counts.BREAKFAST").value(0))
+                .andExpect(jsonPath("$.counts.LUNCH").value(0));
+        mockMvc.perform(get("/api/recipes/facets").param("name", "beef").with(ALICE))
+                .andExpect(jsonPath("$.total").value(1));
+    }
+
+    @Test
+    void counts_ShouldNotBringBackADeletedRecipeWhenAnOlderUpdateArrivesLate() throws Exception {
+        // Given
+        Recipe stew = save(ALICE, recipe("Stew", MealCategory.LUNCH, "Salt")).get(0);
+
+        // When the deletion is seen before the update that preceded it
+        recipeCategoryFacets.onRecipesChanged(new RecipeChangesCommittedEvent(List.of(new RecipeChange(stew.getId(),
+                RecipeChange.Type.DELETED, null, 1001L, null, null))));
+        recipeCategoryFacets.onRecipesChanged(changed(stew, stew.getVersion() + 1, MealCategory.DINNER, "Stew"));
+
+        // Then the recipe stays uncounted
+        mockMvc.perform(get("/api/recipes/facets").with(ALICE))
+                .andExpect(jsonPath("$.total").value(0))
+                .andExpect(jsonPath("$.counts.DINNER").value(0))
+                .andExpect(jsonPath("$.counts.LUNCH").value(0));
+    }
+
+    private static RecipeChangesCommittedEvent changed(Recipe recipe, long version, MealCategory category, String name) {
+        return new RecipeChangesCommittedEvent(List.of(new RecipeChange(recipe.getId(), RecipeChange.Type.UPDATED, version,
+                1001L, category, name)));
+    }
+
+    private List<Recipe> save(RequestPostProcessor user, Recipe... recipes) throws Exception {
+        String body = mockMvc.perform(post("/api/batch/recipes").with(user)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(recipes))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return List.of(objectMapper.readValue(body, Recipe[].class));
+    }
+
+    private static RequestPostProcessor user(Long id, String email) {
+        return authentication(new UsernamePasswordAuthenticationToken(new AuthenticatedUser(id, email), null, List.of()));
+    }
+}
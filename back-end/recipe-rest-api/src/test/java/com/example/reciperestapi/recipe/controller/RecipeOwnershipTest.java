@@ -0,0 +1,187 @@
+package com.example.reciperestapi.recipe.controller;
+
+import com.example.reciperestapi.auth.model.AuthenticatedUser;
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.model.Ingredient;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.reciperestapi.support.RecipeFixtures.recipe;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RecipeOwnershipTest {
+
+    private static final RequestPostProcessor ALICE = user(1001L, "alice@example.com");
+    private static final RequestPostProcessor BOB = user(1002L, "bob@example.com");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepository.deleteAll();
+    }
+
+    @Test
+    void recipes_ShouldOnlyBeVisibleToTheirOwner() throws Exception {
+        // Given
+        Recipe soup = save(ALICE, recipe("Soup", "Salt"));
+        Recipe cake = save(BOB, recipe("Cake", "Salt"));
+
+        // When / Then every list only holds the user's own recipes
+        mockMvc.perform(get("/api/batch/recipes").with(ALICE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("Soup")));
+        mockMvc.perform(get("/api/batch/recipes/summaries").with(BOB))
+                .andExpect(jsonPath("$[*].name", contains("Cake")));
+        mockMvc.perform(get("/api/recipes").with(BOB))
+                .andExpect(jsonPath("$._embedded.recipes", hasSize(1)));
+        mockMvc.perform(get("/api/recipes/search/findByNameContainingIgnoreCase").param("name", "o").with(BOB))
+                .andExpect(jsonPath("$._embedded.recipes", hasSize(0)));
+        mockMvc.perform(get("/api/recipes/changes").with(ALICE))
+                .andExpect(jsonPath("$.changed[*].id", contains(soup.getId().intValue())));
+
+        // and someone else's recipe does not exist
+        mockMvc.perform(get("/api/recipes/" + soup.getId()).with(BOB))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/recipes/" + cake.getId()).with(BOB))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/recipes/" + soup.getId()).with(ALICE))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void writes_ShouldNotReachAnotherOwnersRecipes() throws Exception {
+        // Given
+        Recipe soup = save(ALICE, recipe("Soup", "Salt"));
+
+        // When Bob sends a recipe with Alice's id, deletes it and replaces all of his recipes, the recipe he sends
+        Recipe hijack = recipe("Hijacked", "Salt");
+        hijack.setId(soup.getId());
+        hijack.setVersion(soup.getVersion());
+        // is stored as a new recipe of his
+        mockMvc.perform(put("/api/batch/recipes").with(BOB)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(hijack))))
+                .andExpect(jsonPath("$[0].id").value(not(soup.getId().intValue())));
+        mockMvc.perform(delete("/api/recipes/" + soup.getId()).with(BOB))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(put("/api/recipes/replace-all").with(BOB)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(recipe("Stew", "Salt")))))
+                .andExpect(status().isOk());
+
+        // Then Alice's recipe is untouched and still hers
+        mockMvc.perform(get("/api/batch/recipes").with(ALICE))
+                .andExpect(jsonPath("$[*].name", contains("Soup")))
+                .andExpect(jsonPath("$[0].version").value((int) soup.getVersion()));
+        mockMvc.perform(get("/api/batch/recipes").with(BOB))
+                .andExpect(jsonPath("$[*].name", contains("Stew")));
+        assertEquals(2, recipeRepository.count());
+    }
+
+    @Test
+    void writes_ShouldNotReachAnotherOwnersIngredients() throws Exception {
+        // Given
+        Recipe soup = save(ALICE, recipe("Soup", "Salt"));
+        Long aliceSalt = soup.getIngredients().get(0).getId();
+        Recipe stew = save(BOB, recipe("Stew", "Salt"));
+        Long bobSalt = stew.getIngredients().get(0).getId();
+
+        // When Bob sends his own recipe, and a new one, with Alice's ingredient id
+        stew.setIngredients(new ArrayList<>(List.of(new Ingredient(bobSalt, "Salt", "2"), new Ingredient(aliceSalt, "HACKED", "1"))));
+        Recipe pie = recipe("Pie", "Salt");
+        pie.setIngredients(new ArrayList<>(List.of(new Ingredient(aliceSalt, "HACKED", "1"))));
+
+        // Then his own ingredient is updated in place and Alice's id is stored as a new ingredient of his
+        mockMvc.perform(put("/api/batch/recipes").with(BOB)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(stew, pie))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$[0].ingredients[0].id").value(bobSalt.intValue()))
+                .andExpect(jsonPath("$[0].ingredients[0].amount").value("2"))
+                .andExpect(jsonPath("$[0].ingredients[1].id").value(not(aliceSalt.intValue())))
+                .andExpect(jsonPath("$[1].ingredients[0].id").value(not(aliceSalt.intValue())));
+        // and Alice's ingredient is untouched
+        mockMvc.perform(get("/api/batch/recipes").with(ALICE))
+                .andExpect(jsonPath("$[0].ingredients[*].id", contains(aliceSalt.intValue())))
+                .andExpect(jsonPath("$[0].ingredients[0].name").value("Salt"));
+    }
+
+    @Test
+    void unknownPrincipal_ShouldSeeNoRecipes() throws Exception {
+        // Given
+        save(ALICE, recipe("Soup", "Salt"));
+
+        // When / Then a principal not signed in through a JWT is not given every owner's recipes
+        mockMvc.perform(get("/api/batch/recipes").with(authentication(
+                        new UsernamePasswordAuthenticationToken("internal", null, List.of()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void collectionETag_ShouldOnlyChangeWithTheOwnersRecipes() throws Exception {
+        // Given
+        save(ALICE, recipe("Soup", "Salt"));
+        String etag = mockMvc.perform(get("/api/batch/recipes").with(ALICE))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        // When Bob writes, Alice's list is still current
+        save(BOB, recipe("Cake", "Salt"));
+        mockMvc.perform(get("/api/batch/recipes").with(ALICE).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // Then only her own writes change it
+        save(ALICE, recipe("Bread", "Salt"));
+        mockMvc.perform(get("/api/batch/recipes").with(ALICE).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    private Recipe save(RequestPostProcessor user, Recipe recipe) throws Exception {
+        String body = mockMvc.perform(post("/api/batch/recipes").with(user)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(recipe))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, Recipe[].class)[0];
+    }
+
+    private static RequestPostProcessor user(Long id, String email) {
+        return authentication(new UsernamePasswordAuthenticationToken(new AuthenticatedUser(id, email), null, List.of()));
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.reciperestapi.recipe.controller;
+
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.model.Ingredient;
+import com.example.reciperestapi.recipe.model.MealCategory;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.support.SqlStatementCounter;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the recipe read paths against N+1 ingredient loading. Every endpoint is called with
+ * more recipes than a naive implementation could load in the allowed number of statements.
+ * The second-level cache is emptied first, so the counts are those of a cold cache.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser
+class RecipeQueryCountTest {
+
+    private static final int RECIPES = 30;
+    // Collection reads first read their ETag (see RecipeCollectionVersion)
+    private static final int ETAG = 1;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long firstId;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepository.deleteAll();
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < RECIPES; i++) {
+            Recipe recipe = new Recipe();
+            recipe.setName("Soup " + i);
+            recipe.setDescription("A warm soup");
+            recipe.setCategory(MealCategory.LUNCH);
+            recipe.setIngredients(new ArrayList<>(List.of(
+                    new Ingredient(null, "Water", "1l"),
+                    new Ingredient(null, "Salt", "1 tsp"))));
+            recipes.add(recipe);
+        }
+        firstId = recipeRepository.saveAll(recipes).get(0).getId();
+    }
+
+    @Test
+    void getAllRecipes_ShouldUseOneStatement() throws Exception {
+        assertStatements(get("/api/batch/recipes"), ETAG + 1);
+    }
+
+    @Test
+    void getRecipeSummaries_ShouldNotLoadIngredients() throws Exception {
+        assertStatements(get("/api/batch/recipes/summaries"), ETAG + 1);
+    }
+
+    @Test
+    void restCollection_ShouldBatchLoadIngredients() throws Exception {
+        // Page query, count query and one batch of ingredients
+        assertStatements(get("/api/recipes").param("size", "" + RECIPES), ETAG + 3);
+    }
+
+    @Test
+    void restCollectionSummaryProjection_ShouldNotLoadIngredients() throws Exception {
+        assertStatements(get("/api/recipes").param("size", "" + RECIPES).param("projection", "summary"), ETAG + 2);
+    }
+
+    @Test
+    void restItem_ShouldUseOneStatement() throws Exception {
+        assertStatements(get("/api/recipes/" + firstId), 1);
+    }
+
+    @Test
+    void restSearchByName_ShouldUseOneStatement() throws Exception {
+        assertStatements(get("/api/recipes/search/findByNameContainingIgnoreCase").param("name", "soup"), ETAG + 1);
+    }
+
+    @Test
+    void restSearchByDescription_ShouldUseOneStatement() throws Exception {
+        assertStatements(get("/api/recipes/search/findByDescriptionContainingIgnoreCase").param("description", "warm"), ETAG + 1);
+    }
+
+    private void assertStatements(RequestBuilder request, long expected) throws Exception {
+        entityManagerFactory.getCache().evictAll();
+        SqlStatementCounter.reset();
+        mockMvc.perform(request).andExpect(status().isOk());
+        assertEquals(expected, SqlStatementCounter.count(), "SQL statements for the request");
+    }
+}
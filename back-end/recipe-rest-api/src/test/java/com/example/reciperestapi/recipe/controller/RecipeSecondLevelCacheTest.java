@@ -0,0 +1,130 @@
+package com.example.reciperestapi.recipe.controller;
+
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.model.Ingredient;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.support.SqlStatementCounter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static com.example.reciperestapi.support.RecipeFixtures.recipe;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser
+class RecipeSecondLevelCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepository.deleteAll();
+    }
+
+    @Test
+    void restItem_ShouldBeServedFromCacheOnceWarm() throws Exception {
+        // Given a recipe that has been read once
+        Recipe soup = recipeRepository.save(recipe("Soup", "Water"));
+        mockMvc.perform(get("/api/recipes/" + soup.getId())).andExpect(status().isOk());
+
+        // When it is read again
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/api/recipes/" + soup.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ingredients[0].name").value("Water"));
+
+        // Then the database is not asked
+        assertEquals(0, SqlStatementCounter.count());
+    }
+
+    @Test
+    void finderResults_ShouldBeCachedUntilRecipesChange() throws Exception {
+        // Given a cached search
+        recipeRepository.save(recipe("Tomato soup", "Water"));
+        mockMvc.perform(get("/api/recipes/search/findByNameContainingIgnoreCase").param("name", "soup"))
+                .andExpect(status().isOk());
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/api/recipes/search/findByNameContainingIgnoreCase").param("name", "soup"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.recipes.length()").value(1));
+        // Only the collection ETag is read
+        assertEquals(1, SqlStatementCounter.count());
+
+        // When another matching recipe is added through the batch endpoint
+        mockMvc.perform(post("/api/batch/recipes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(recipe("Onion soup", "Water")))))
+                .andExpect(status().isCreated());
+
+        // Then the cached result is not used any more
+        mockMvc.perform(get("/api/recipes/search/findByNameContainingIgnoreCase").param("name", "soup"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.recipes.length()").value(2));
+    }
+
+    @Test
+    void batchUpdate_ShouldReplaceCachedRecipeAndIngredients() throws Exception {
+        // Given a cached recipe
+        Recipe soup = recipeRepository.save(recipe("Soup", "Water"));
+        mockMvc.perform(get("/api/recipes/" + soup.getId())).andExpect(status().isOk());
+
+        // When it is renamed and gets another ingredient through the batch endpoint
+        Recipe edited = recipeRepository.findAllWithIngredientsByIdIn(List.of(soup.getId())).get(0);
+        edited.setName("Pumpkin soup");
+        edited.getIngredients().add(new Ingredient(null, "Pumpkin", "1"));
+        mockMvc.perform(put("/api/batch/recipes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(edited))))
+                .andExpect(status().isCreated());
+
+        // Then readers see the new state
+        mockMvc.perform(get("/api/recipes/" + soup.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Pumpkin soup"))
+                .andExpect(jsonPath("$.ingredients.length()").value(2));
+    }
+
+    @Test
+    void syncDelete_ShouldEvictCachedRecipe() throws Exception {
+        // Given two cached recipes
+        Recipe soup = recipeRepository.save(recipe("Soup", "Water"));
+        Recipe cake = recipeRepository.save(recipe("Cake", "Water"));
+        mockMvc.perform(get("/api/recipes/" + cake.getId())).andExpect(status().isOk());
+
+        // When sync keeps only the soup, which deletes the cake with bulk statements
+        Recipe keep = recipeRepository.findAllWithIngredientsByIdIn(List.of(soup.getId())).get(0);
+        mockMvc.perform(put("/api/recipes/sync")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(keep))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(1));
+
+        // Then the cake is gone for readers too
+        mockMvc.perform(get("/api/recipes/" + cake.getId())).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.reciperestapi.recipe.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngredientParserTest {
+
+    @Test
+    void canonicalName_ShouldIgnoreCaseAccentsPunctuationAndPlurals() {
+        assertEquals("tomato", IngredientParser.canonicalName("  Tomatoes "));
+        assertEquals("tomato", IngredientParser.canonicalName("tomato"));
+        assertEquals("red bell pepper", IngredientParser.canonicalName("Red  bell-peppers"));
+        assertEquals("jalapeno", IngredientParser.canonicalName("Jalapeño"));
+        assertEquals("berry", IngredientParser.canonicalName("Berries"));
+        assertEquals("peach", IngredientParser.canonicalName("peaches"));
+        assertEquals("egg", IngredientParser.canonicalName("Eggs"));
+        // Words that only look plural are kept
+        assertEquals("rice", IngredientParser.canonicalName("Rice"));
+        assertEquals("asparagus", IngredientParser.canonicalName("Asparagus"));
+        assertEquals("swiss cheese", IngredientParser.canonicalName("Swiss cheese"));
+        assertNull(IngredientParser.canonicalName(" - "));
+    }
+
+    @Test
+    void parseAmount_ShouldReadLeadingQuantityAndUnit() {
+        assertEquals(new IngredientParser.Amount(200.0, "g"), IngredientParser.parseAmount("200g"));
+        assertEquals(new IngredientParser.Amount(1.5, "kg"), IngredientParser.parseAmount("1,5 kg"));
+        assertEquals(new IngredientParser.Amount(0.5, "cup"), IngredientParser.parseAmount("1/2 cup"));
+        assertEquals(new IngredientParser.Amount(1.5, "cup"), IngredientParser.parseAmount("1 1/2 Cups"));
+        assertEquals(new IngredientParser.Amount(2.0, "tbsp"), IngredientParser.parseAmount("2 tablespoons"));
+        assertEquals(new IngredientParser.Amount(3.0, null), IngredientParser.parseAmount("3"));
+        assertEquals(new IngredientParser.Amount(null, null), IngredientParser.parseAmount("a pinch"));
+        assertEquals(new IngredientParser.Amount(null, null), IngredientParser.parseAmount("1/0 cup"));
+    }
+
+    @Test
+    void ingredient_ShouldKeepDerivedFieldsInStepWithItsText() {
+        Ingredient ingredient = new Ingredient(null, "Onions", "2 pieces");
+        assertEquals("onion", ingredient.getCanonicalName());
+        assertEquals(2.0, ingredient.getQuantity());
+        assertEquals("piece", ingredient.getUnit());
+
+        ingredient.setName("Shallots");
+        ingredient.setAmount("to taste");
+        assertEquals("shallot", ingredient.getCanonicalName());
+        assertNull(ingredient.getQuantity());
+        assertNull(ingredient.getUnit());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonPatchesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void replace_AtTheRoot_ShouldReplaceTheWholeDocument() throws Exception {
+        JsonNode patched = JsonPatches.jsonPatch(json("{\"name\": \"Soup\"}"),
+                json("[{\"op\": \"replace\", \"path\": \"\", \"value\": {\"name\": \"Stew\"}}]"));
+
+        assertEquals(json("{\"name\": \"Stew\"}"), patched);
+    }
+
+    @Test
+    void test_ShouldCompareNumbersByValue() throws Exception {
+        JsonNode document = json("{\"servings\": 1, \"nutrition\": {\"kcal\": [250.0]}}");
+
+        assertDoesNotThrow(() -> JsonPatches.jsonPatch(document, json("""
+                [
+                  {"op": "test", "path": "/servings", "value": 1.0},
+                  {"op": "test", "path": "/nutrition", "value": {"kcal": [2.5e2]}}
+                ]""")));
+        assertThrows(IllegalArgumentException.class, () -> JsonPatches.jsonPatch(document,
+                json("[{\"op\": \"test\", \"path\": \"/servings\", \"value\": 2}]")));
+    }
+
+    @Test
+    void move_IntoItsOwnChild_ShouldBeRejected() throws Exception {
+        JsonNode document = json("{\"a\": {\"b\": 1}}");
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> JsonPatches.jsonPatch(document,
+                json("[{\"op\": \"move\", \"from\": \"/a\", \"path\": \"/a/c\"}]")));
+
+        assertEquals("Cannot move /a into its own child /a/c", error.getMessage());
+        // A sibling whose name merely starts the same is not a child
+        assertEquals(json("{\"ab\": {\"b\": 1}}"), JsonPatches.jsonPatch(document,
+                json("[{\"op\": \"move\", \"from\": \"/a\", \"path\": \"/ab\"}]")));
+    }
+
+    private JsonNode json(String text) throws Exception {
+        return objectMapper.readTree(text);
+    }
+}
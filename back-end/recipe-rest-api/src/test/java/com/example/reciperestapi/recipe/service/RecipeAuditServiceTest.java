@@ -0,0 +1,179 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.example.reciperestapi.recipe.dao.RecipeOutboxRepository;
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.event.RecipeChange;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.recipe.model.RecipeAuditEntry;
+import com.example.reciperestapi.recipe.model.RecipePatch;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static com.example.reciperestapi.support.RecipeFixtures.recipe;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RecipeAuditServiceTest {
+
+    @Autowired
+    private RecipeAuditService recipeAuditService;
+
+    @Autowired
+    private RecipePatchService recipePatchService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RecipeOutboxRepository outboxRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        recipeRepository.deleteAll();
+        recipeAuditService.relay();
+    }
+
+    @Test
+    @WithMockUser(username = "cook@example.com")
+    void recipeChanges_ShouldBeLoggedWithWhoChangedWhat() throws Exception {
+        // Given
+        Recipe soup = recipeRepository.save(recipe("Soup", "Water", "Salt"));
+        recipePatchService.patch(List.of(patch(soup.getId(), 0, """
+                [
+                  {"op": "replace", "path": "/name", "value": "Tomato soup"},
+                  {"op": "replace", "path": "/ingredients/0/amount", "value": "2l"},
+                  {"op": "remove", "path": "/ingredients/1"},
+                  {"op": "add", "path": "/ingredients/-", "value": {"name": "Basil", "amount": "1 sprig"}}
+                ]""")));
+        recipeRepository.deleteById(soup.getId());
+
+        // When
+        int appended = recipeAuditService.relay();
+
+        // Then
+        assertEquals(3, appended);
+        assertEquals(0, outboxRepository.count());
+        List<RecipeAuditEntry> history = recipeAuditService.history(soup.getId());
+        assertEquals(List.of(RecipeChange.Type.CREATED, RecipeChange.Type.UPDATED, RecipeChange.Type.DELETED),
+                history.stream().map(RecipeAuditEntry::getType).toList());
+        assertTrue(history.stream().allMatch(entry -> "cook@example.com".equals(entry.getActor())));
+
+        assertEquals("Soup", history.get(0).getChanges().get("name").asText());
+        assertEquals(2, history.get(0).getChanges().get("ingredients").size());
+
+        JsonNode update = history.get(1).getChanges();
+        assertEquals("Soup", update.at("/name/from").asText());
+        assertEquals("Tomato soup", update.at("/name/to").asText());
+        assertEquals("1", update.at("/ingredients/changed/0/amount/from").asText());
+        assertEquals("2l", update.at("/ingredients/changed/0/amount/to").asText());
+        assertEquals("Salt", update.at("/ingredients/removed/0/name").asText());
+        assertEquals("Basil", update.at("/ingredients/added/0/name").asText());
+
+        assertEquals("Tomato soup", history.get(2).getChanges().get("name").asText());
+    }
+
+    @Test
+    void history_ShouldIncludeChangesNotYetRelayed() throws Exception {
+        // Given
+        Recipe cake = recipeRepository.save(recipe("Cake", "Sugar"));
+
+        // When / Then the change is visible while it is still in the outbox, and once after the relay
+        assertEquals(1, recipeAuditService.history(cake.getId()).size());
+        recipeAuditService.relay();
+        assertEquals(1, recipeAuditService.history(cake.getId()).size());
+    }
+
+    @Test
+    void rolledBackChange_ShouldNotBeLogged() throws Exception {
+        // Given
+        Recipe cake = recipeRepository.save(recipe("Cake", "Sugar"));
+
+        // When a patch against an outdated version is refused
+        assertThrows(ResponseStatusException.class, () -> recipePatchService.patch(List.of(
+                patch(cake.getId(), 7, "{\"name\": \"Cheesecake\"}"))));
+        recipeAuditService.relay();
+
+        // Then
+        List<RecipeAuditEntry> history = recipeAuditService.history(cake.getId());
+        assertEquals(1, history.size());
+        assertEquals(RecipeChange.Type.CREATED, history.get(0).getType());
+    }
+
+    @Test
+    void auditLog_ShouldSurviveReopenAndDropTornRecord(@TempDir Path directory) throws Exception {
+        // Given records spread over several small segments
+        try (RecipeAuditLog log = new RecipeAuditLog(directory, 128, 4)) {
+            for (long eventId = 1; eventId <= 10; eventId++) {
+                log.append(eventId, eventId % 2, ("event " + eventId).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        List<Path> segments;
+        try (var files = Files.list(directory)) {
+            segments = files.sorted().toList();
+        }
+        assertTrue(segments.size() > 1);
+        // A crash left the last record half written: flip a payload byte so its checksum fails
+        try (FileChannel last = FileChannel.open(segments.get(segments.size() - 1), StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+            long lastRecord = lastRecordOffset(last);
+            last.write(ByteBuffer.wrap(new byte[]{'X'}), lastRecord + 24);
+        }
+
+        // When
+        try (RecipeAuditLog log = new RecipeAuditLog(directory, 128, 4)) {
+            // Then the even recipe lost its last event (10), the odd one kept all of its events
+            assertEquals(List.of("event 2", "event 4", "event 6", "event 8"), strings(log.read(0)));
+            assertEquals(List.of("event 1", "event 3", "event 5", "event 7", "event 9"), strings(log.read(1)));
+            assertTrue(log.isRecentlyAppended(9));
+            assertFalse(log.isRecentlyAppended(10));
+
+            // and the next append takes the torn record's place
+            log.append(11, 0, "event 11".getBytes(StandardCharsets.UTF_8));
+            assertEquals("event 11", strings(log.read(0)).get(4));
+        }
+    }
+
+    private static long lastRecordOffset(FileChannel segment) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        long offset = 0;
+        long last = 0;
+        while (true) {
+            length.clear();
+            segment.read(length, offset);
+            int recordLength = length.getInt(0);
+            if (recordLength == 0) {
+                return last;
+            }
+            last = offset;
+            offset += recordLength;
+        }
+    }
+
+    private static List<String> strings(List<byte[]> payloads) {
+        return payloads.stream().map(payload -> new String(payload, StandardCharsets.UTF_8)).toList();
+    }
+
+    private RecipePatch patch(Long id, long version, String json) throws Exception {
+        return RecipePatch.builder().id(id).version(version).patch(objectMapper.readTree(json)).build();
+    }
+}
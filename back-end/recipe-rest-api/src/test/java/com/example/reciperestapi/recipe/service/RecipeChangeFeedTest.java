@@ -0,0 +1,81 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.example.reciperestapi.recipe.event.RecipeChange;
+import com.example.reciperestapi.recipe.event.RecipeChangesCommittedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeChangeFeedTest {
+
+    // One sending thread, so a single client that stops reading would hold up everyone
+    private final RecipeChangeFeed feed = new RecipeChangeFeed(16, 1, 10, 60_000, 100);
+
+    @AfterEach
+    void tearDown() {
+        feed.close();
+    }
+
+    @Test
+    void stalledSubscriber_ShouldBeDroppedWithoutHoldingUpTheOthers() throws Exception {
+        // Given a client whose first write blocks, taking the only sending thread
+        RecordingEmitter stalled = new RecordingEmitter(new CountDownLatch(1));
+        feed.subscribe(stalled, null);
+        assertNotNull(stalled.sends.poll(5, TimeUnit.SECONDS));
+        RecordingEmitter healthy = new RecordingEmitter(null);
+        feed.subscribe(healthy, null);
+
+        // When its write has been blocked for longer than the send timeout
+        Thread.sleep(200);
+        feed.dropStalledSubscribers();
+
+        // Then the others are served again
+        assertNotNull(healthy.sends.poll(5, TimeUnit.SECONDS));
+        feed.onRecipesChanged(new RecipeChangesCommittedEvent(List.of(
+                new RecipeChange(7L, RecipeChange.Type.CREATED, 0L, 1L, null, "Soup"))));
+        assertNotNull(healthy.sends.poll(5, TimeUnit.SECONDS));
+        assertEquals(1, feed.subscriberCount());
+        // and the stalled stream is completed once its write returns
+        stalled.release.countDown();
+        assertTrue(stalled.completed.await(5, TimeUnit.SECONDS));
+        assertNull(stalled.sends.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    // Stands in for the client's end of the stream; blocks in its first send until released
+    private static final class RecordingEmitter extends SseEmitter {
+        final LinkedBlockingQueue<SseEventBuilder> sends = new LinkedBlockingQueue<>();
+        final CountDownLatch release;
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder event) throws IOException {
+            sends.add(event);
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+            super.complete();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.event.RecipeChangeSequence;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.recipe.model.RecipeChangesResponse;
+import com.example.reciperestapi.recipe.model.RecipePatch;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.reciperestapi.support.RecipeFixtures.recipe;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RecipeDeltaSyncServiceTest {
+
+    @Autowired
+    private RecipeDeltaSyncService recipeDeltaSyncService;
+
+    @Autowired
+    private RecipeChangeSequence recipeChangeSequence;
+
+    @Autowired
+    private RecipePatchService recipePatchService;
+
+    @Autowired
+    private RecipeSyncService recipeSyncService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepository.deleteAll();
+    }
+
+    @Test
+    void changesSince_ShouldReturnOnlyWhatChangedAfterwards() throws Exception {
+        // Given a client that has seen three recipes
+        Recipe soup = recipeRepository.save(recipe("Soup", "Water", "Salt"));
+        Recipe cake = recipeRepository.save(recipe("Cake", "Sugar"));
+        recipeRepository.save(recipe("Bread", "Flour"));
+        long since = recipeChangeSequence.watermark();
+
+        // When only an ingredient of the soup is edited, the cake is deleted and a recipe is added
+        recipePatchService.patch(List.of(RecipePatch.builder().id(soup.getId()).version(0L)
+                .patch(objectMapper.readTree("[{\"op\": \"replace\", \"path\": \"/ingredients/1/amount\", \"value\": \"a pinch\"}]"))
+                .build()));
+        recipeRepository.deleteById(cake.getId());
+        Recipe steak = recipeRepository.save(recipe("Steak", "Beef"));
+        RecipeChangesResponse changes = recipeDeltaSyncService.changesSince(since, 100);
+
+        // Then the bread is not sent again
+        assertEquals(List.of(soup.getId(), steak.getId()), changes.getChanged().stream().map(Recipe::getId).toList());
+        assertEquals("a pinch", changes.getChanged().get(0).getIngredients().get(1).getAmount());
+        assertEquals(List.of(cake.getId()), changes.getDeleted());
+        assertFalse(changes.isHasMore());
+        assertTrue(changes.getNextSince() >= changes.getChanged().get(1).getChangeSeq());
+
+        // and a client that is up to date gets nothing
+        RecipeChangesResponse upToDate = recipeDeltaSyncService.changesSince(changes.getNextSince(), 100);
+        assertTrue(upToDate.getChanged().isEmpty());
+        assertTrue(upToDate.getDeleted().isEmpty());
+        assertEquals(changes.getNextSince(), upToDate.getNextSince());
+    }
+
+    @Test
+    void changesSince_ShouldPageInSequenceOrder() {
+        // Given
+        long since = recipeChangeSequence.watermark();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(recipeRepository.save(recipe("Recipe " + i, "Salt")).getId());
+        }
+        recipeRepository.deleteById(ids.get(0));
+
+        // When
+        List<Long> changed = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        int calls = 0;
+        RecipeChangesResponse page;
+        do {
+            page = recipeDeltaSyncService.changesSince(since, 2);
+            page.getChanged().forEach(recipe -> changed.add(recipe.getId()));
+            deleted.addAll(page.getDeleted());
+            since = page.getNextSince();
+            calls++;
+        } while (page.isHasMore());
+
+        // Then the deleted recipe only shows up as deleted, since it no longer exists
+        assertEquals(3, calls);
+        assertEquals(ids.subList(1, 5), changed);
+        assertEquals(List.of(ids.get(0)), deleted);
+    }
+
+    @Test
+    void changesSince_ShouldIncludeRecipesRemovedBySync() {
+        // Given
+        Recipe soup = recipeRepository.save(recipe("Soup", "Water"));
+        Recipe cake = recipeRepository.save(recipe("Cake", "Sugar"));
+        long since = recipeChangeSequence.watermark();
+
+        // When the sync endpoint drops the cake with a bulk delete
+        recipeSyncService.sync(List.of(soup));
+        RecipeChangesResponse changes = recipeDeltaSyncService.changesSince(since, 100);
+
+        // Then the unchanged soup is not sent again
+        assertTrue(changes.getChanged().isEmpty());
+        assertEquals(List.of(cake.getId()), changes.getDeleted());
+    }
+
+    @Test
+    void watermark_ShouldStayBelowUncommittedChanges() {
+        // Given
+        long before = recipeChangeSequence.watermark();
+
+        // When / Then the number taken at flush is not handed to readers until the commit
+        Recipe soup = transactionTemplate.execute(status -> {
+            Recipe saved = recipeRepository.saveAndFlush(recipe("Soup", "Water"));
+            assertTrue(saved.getChangeSeq() > before);
+            assertEquals(before, recipeChangeSequence.watermark());
+            assertTrue(recipeDeltaSyncService.changesSince(before, 100).getChanged().isEmpty());
+            return saved;
+        });
+        assertTrue(recipeChangeSequence.watermark() >= soup.getChangeSeq());
+        assertEquals(List.of(soup.getId()), recipeDeltaSyncService.changesSince(before, 100).getChanged()
+                .stream().map(Recipe::getId).toList());
+    }
+}
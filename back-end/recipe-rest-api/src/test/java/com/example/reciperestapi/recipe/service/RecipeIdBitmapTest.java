@@ -0,0 +1,95 @@
+package com.example.reciperestapi.recipe.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeIdBitmapTest {
+
+    @Test
+    void setOperations_ShouldMatchSortedSets() {
+        // Given sparse and dense groups, so both container kinds meet each other
+        Random random = new Random(42);
+        TreeSet<Long> leftIds = new TreeSet<>();
+        TreeSet<Long> rightIds = new TreeSet<>();
+        RecipeIdBitmap left = new RecipeIdBitmap();
+        RecipeIdBitmap right = new RecipeIdBitmap();
+        for (int i = 0; i < 60_000; i++) {
+            long dense = random.nextInt(10_000);
+            long sparse = 65_536L * (1 + random.nextInt(3)) + random.nextInt(65_536);
+            long id = i % 2 == 0 ? dense : sparse;
+            if (random.nextBoolean()) {
+                left.add(id);
+                leftIds.add(id);
+            } else {
+                right.add(id);
+                rightIds.add(id);
+            }
+        }
+        // and some removals, which turn dense groups back into arrays
+        for (int i = 0; i < 20_000; i++) {
+            long id = random.nextInt(10_000);
+            left.remove(id);
+            leftIds.remove(id);
+        }
+
+        // When / Then
+        TreeSet<Long> and = new TreeSet<>(leftIds);
+        and.retainAll(rightIds);
+        TreeSet<Long> or = new TreeSet<>(leftIds);
+        or.addAll(rightIds);
+        TreeSet<Long> andNot = new TreeSet<>(leftIds);
+        andNot.removeAll(rightIds);
+
+        assertEquals(new ArrayList<>(leftIds), left.idsAfter(-1, Integer.MAX_VALUE));
+        assertEquals(new ArrayList<>(and), left.and(right).idsAfter(-1, Integer.MAX_VALUE));
+        assertEquals(new ArrayList<>(or), left.or(right).idsAfter(-1, Integer.MAX_VALUE));
+        assertEquals(new ArrayList<>(andNot), left.andNot(right).idsAfter(-1, Integer.MAX_VALUE));
+        assertEquals(and.size(), left.and(right).cardinality());
+        assertEquals(or.size(), left.or(right).cardinality());
+    }
+
+    @Test
+    void idsAfter_ShouldPageAcrossGroups() {
+        // Given
+        RecipeIdBitmap bitmap = RecipeIdBitmap.of(3, 70_000, 5, 65_535, 200_000);
+
+        // When
+        List<Long> first = bitmap.idsAfter(0, 2);
+        List<Long> second = bitmap.idsAfter(first.get(1), 2);
+        List<Long> last = bitmap.idsAfter(second.get(1), 2);
+
+        // Then
+        assertEquals(List.of(3L, 5L), first);
+        assertEquals(List.of(65_535L, 70_000L), second);
+        assertEquals(List.of(200_000L), last);
+    }
+
+    @Test
+    void operations_ShouldLeaveTheirOperandsAlone() {
+        // Given
+        RecipeIdBitmap chicken = RecipeIdBitmap.of(1, 2, 3);
+        RecipeIdBitmap rice = RecipeIdBitmap.of(2, 3, 4);
+
+        // When
+        RecipeIdBitmap both = chicken.and(rice);
+        both.add(9);
+        chicken.or(rice).remove(1);
+
+        // Then
+        assertEquals(List.of(1L, 2L, 3L), chicken.idsAfter(0, 10));
+        assertEquals(List.of(2L, 3L, 4L), rice.idsAfter(0, 10));
+        assertFalse(chicken.contains(9));
+    }
+
+    @Test
+    void add_WithIdOutOfRange_ShouldFail() {
+        assertThrows(IllegalArgumentException.class, () -> new RecipeIdBitmap().add(-1));
+        assertThrows(IllegalArgumentException.class, () -> new RecipeIdBitmap().add(1L << 32));
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.model.RecipeImportResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RecipeImportServiceTest {
+
+    @Autowired
+    private RecipeImportService recipeImportService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepository.deleteAll();
+    }
+
+    @Test
+    void importRecipes_WithNdjson_ShouldPersistInChunks() {
+        // Given five recipes, one per line
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            ndjson.append(recipeJson("Recipe " + i)).append('\n');
+        }
+
+        // When
+        RecipeImportResponse response = recipeImportService.importRecipes(stream(ndjson.toString()), 2);
+
+        // Then
+        assertEquals(5, response.getImported());
+        assertEquals(0, response.getFailed());
+        assertEquals(3, response.getChunks().size());
+        assertNull(response.getError());
+        assertEquals(5, recipeRepository.count());
+    }
+
+    @Test
+    void importRecipes_WithNonPositiveChunkSize_ShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> recipeImportService.importRecipes(stream(recipeJson("Soup")), 0));
+        assertThrows(IllegalArgumentException.class, () -> new RecipeImportService(new ObjectMapper(), transactionManager, -1));
+        assertEquals(0, recipeRepository.count());
+    }
+
+    @Test
+    void importRecipes_WithJsonArray_ShouldPersistAll() {
+        // Given
+        String array = "[" + recipeJson("First") + "," + recipeJson("Second") + "]";
+
+        // When
+        RecipeImportResponse response = recipeImportService.importRecipes(stream(array), 10);
+
+        // Then
+        assertEquals(2, response.getImported());
+        assertEquals(1, response.getChunks().size());
+        assertEquals(2, recipeRepository.count());
+    }
+
+    @Test
+    void importRecipes_WithFailingChunk_ShouldKeepOtherChunks() {
+        // Given a description longer than the 2000 character column in the second chunk
+        String tooLong = "x".repeat(2001);
+        String ndjson = recipeJson("First") + "\n"
+                + "{\"name\":\"Broken\",\"description\":\"" + tooLong + "\"}\n"
+                + recipeJson("Third") + "\n";
+
+        // When
+        RecipeImportResponse response = recipeImportService.importRecipes(stream(ndjson), 1);
+
+        // Then
+        assertEquals(2, response.getImported());
+        assertEquals(1, response.getFailed());
+        assertNotNull(response.getChunks().get(1).getError());
+        assertEquals(2, recipeRepository.count());
+    }
+
+    @Test
+    void importRecipes_WithMalformedInput_ShouldStopAndReport() {
+        // Given
+        String ndjson = recipeJson("First") + "\n{\"name\": oops}\n" + recipeJson("Never read") + "\n";
+
+        // When
+        RecipeImportResponse response = recipeImportService.importRecipes(stream(ndjson), 10);
+
+        // Then
+        assertEquals(1, response.getImported());
+        assertNotNull(response.getError());
+        assertEquals(1, recipeRepository.count());
+    }
+
+    private static String recipeJson(String name) {
+        return "{\"name\":\"" + name + "\",\"description\":\"desc\",\"category\":\"DINNER\","
+                + "\"ingredients\":[{\"name\":\"Salt\",\"amount\":\"1\"}]}";
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.example.reciperestapi.auth.model.AuthenticatedUser;
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.recipe.model.RecipesByIngredientsResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static com.example.reciperestapi.support.RecipeFixtures.recipe;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RecipeIngredientIndexTest {
+
+    @Autowired
+    private RecipeIngredientIndex recipeIngredientIndex;
+
+    @Autowired
+    private RecipeSyncService recipeSyncService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepository.deleteAll();
+    }
+
+    @Test
+    void find_ShouldCombineAllAnyAndNone() {
+        // Given
+        Recipe paella = recipeRepository.save(recipe("Paella", "Chicken", "Rice", "Saffron"));
+        Recipe satay = recipeRepository.save(recipe("Satay", "Chicken thighs", "Rice", "Peanuts"));
+        Recipe curry = recipeRepository.save(recipe("Curry", "Chicken", "Rice", "Coconut milk"));
+        recipeRepository.save(recipe("Risotto", "Rice", "Parmesan"));
+        awaitFind(List.of("rice"), List.of(), List.of(), response -> response.getTotal() == 4);
+
+        // When / Then names match case- and plural-insensitively
+        assertEquals(List.of(paella.getId(), curry.getId()),
+                ids(recipeIngredientIndex.find(List.of("CHICKEN", "rice"), null, null, null, 20)));
+        assertEquals(List.of(paella.getId(), satay.getId(), curry.getId()),
+                ids(recipeIngredientIndex.find(List.of("rice"), List.of("chicken", "chicken thigh"), null, null, 20)));
+        assertEquals(List.of(paella.getId(), curry.getId()),
+                ids(recipeIngredientIndex.find(null, List.of("chicken", "chicken thighs"), List.of("peanut"), null, 20)));
+        assertEquals(List.of(curry.getId()),
+                ids(recipeIngredientIndex.find(List.of("chicken"), null, List.of("saffron"), null, 20)));
+        assertEquals(0, recipeIngredientIndex.find(List.of("chicken", "caviar"), null, null, null, 20).getTotal());
+    }
+
+    @Test
+    void find_ShouldFollowUpdatesAndDeletes() {
+        // Given
+        Recipe soup = recipeRepository.save(recipe("Soup", "Water", "Leek"));
+        Recipe cake = recipeRepository.save(recipe("Cake", "Flour", "Leek"));
+        awaitFind(List.of("leek"), List.of(), List.of(), response -> response.getTotal() == 2);
+
+        // When sync swaps an ingredient of the soup and bulk-deletes the cake
+        Recipe edited = recipeRepository.findAllWithIngredientsByIdIn(List.of(soup.getId())).get(0);
+        edited.getIngredients().get(1).setName("Potatoes");
+        recipeSyncService.sync(List.of(edited));
+
+        // Then
+        awaitFind(List.of("leek"), List.of(), List.of(), response -> response.getTotal() == 0);
+        RecipesByIngredientsResponse potatoes = recipeIngredientIndex.find(List.of("potato", "water"), null, null, null, 20);
+        assertEquals(List.of(soup.getId()), ids(potatoes));
+        assertEquals(2, potatoes.getRecipes().get(0).getIngredients().size());
+        assertTrue(recipeIngredientIndex.find(List.of("flour"), null, null, null, 20).getRecipes().isEmpty());
+        assertFalse(recipeRepository.existsById(cake.getId()));
+    }
+
+    @Test
+    void find_ShouldPageInIdOrder() {
+        // Given
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(recipeRepository.save(recipe("Bread " + i, "Flour")).getId());
+        }
+        awaitFind(List.of("flour"), List.of(), List.of(), response -> response.getTotal() == 5);
+
+        // When
+        RecipesByIngredientsResponse first = recipeIngredientIndex.find(List.of("flour"), null, null, null, 3);
+        RecipesByIngredientsResponse second = recipeIngredientIndex.find(List.of("flour"), null, null, first.getNextCursor(), 3);
+
+        // Then
+        assertEquals(ids.subList(0, 3), ids(first));
+        assertEquals(ids.subList(3, 5), ids(second));
+        assertEquals(5, second.getTotal());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void find_ShouldOnlyMatchTheUsersOwnRecipes() {
+        // Given
+        Recipe alices = asUser(1001L, () -> recipeRepository.save(recipe("Fried rice", "Rice", "Egg")));
+        asUser(1002L, () -> recipeRepository.save(recipe("Rice pudding", "Rice", "Milk")));
+        awaitFind(List.of("rice"), List.of(), List.of(), response -> response.getTotal() == 2);
+
+        // When
+        RecipesByIngredientsResponse response = asUser(1001L, () -> recipeIngredientIndex.find(List.of("rice"), null, null, null, 20));
+
+        // Then
+        assertEquals(1, response.getTotal());
+        assertEquals(List.of(alices.getId()), ids(response));
+    }
+
+    @Test
+    void find_WithoutIngredients_ShouldBeRejected() {
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                () -> recipeIngredientIndex.find(List.of(" "), null, List.of("salt"), null, 20));
+
+        assertEquals(HttpStatus.BAD_REQUEST, error.getStatusCode());
+    }
+
+    // The index is updated on a background thread after commit, and built after startup
+    private RecipesByIngredientsResponse awaitFind(List<String> all, List<String> any, List<String> none,
+                                                   Predicate<RecipesByIngredientsResponse> condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            try {
+                RecipesByIngredientsResponse response = recipeIngredientIndex.find(all, any, none, null, 20);
+                if (condition.test(response) || System.currentTimeMillis() > deadline) {
+                    return response;
+                }
+            } catch (ResponseStatusException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static List<Long> ids(RecipesByIngredientsResponse response) {
+        return response.getRecipes().stream().map(Recipe::getId).toList();
+    }
+
+    private static <T> T asUser(Long id, Supplier<T> action) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(new AuthenticatedUser(id, id + "@example.com"), null, List.of()));
+        try {
+            return action.get();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.model.Ingredient;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.recipe.model.RecipePatch;
+import com.example.reciperestapi.support.SqlStatementCounter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static com.example.reciperestapi.support.RecipeFixtures.recipe;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RecipePatchServiceTest {
+
+    @Autowired
+    private RecipePatchService recipePatchService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepository.deleteAll();
+    }
+
+    @Test
+    void mergePatch_ShouldOnlyWriteChangedColumns() throws Exception {
+        // Given
+        Recipe soup = recipeRepository.save(recipe("Soup", "Water", "Salt"));
+
+        // When only the name changes
+        SqlStatementCounter.reset();
+        List<Recipe> patched = recipePatchService.patch(List.of(
+                patch(soup.getId(), 0, "{\"name\": \"Tomato soup\"}")));
+
+        // Then one SELECT and one UPDATE of the recipe row
+        assertEquals(2, SqlStatementCounter.count());
+        assertEquals(1, patched.get(0).getVersion());
+        Recipe stored = load(soup.getId());
+        assertEquals("Tomato soup", stored.getName());
+        assertEquals("Soup description", stored.getDescription());
+        assertEquals(2, stored.getIngredients().size());
+    }
+
+    @Test
+    void jsonPatch_ShouldOnlyTouchChangedIngredientRows() throws Exception {
+        // Given
+        Recipe soup = recipeRepository.save(recipe("Soup", "Water", "Salt"));
+        Long waterId = soup.getIngredients().get(0).getId();
+
+        // When one ingredient is edited, one removed and one added
+        SqlStatementCounter.reset();
+        recipePatchService.patch(List.of(patch(soup.getId(), 0, """
+                [
+                  {"op": "test", "path": "/ingredients/0/name", "value": "Water"},
+                  {"op": "replace", "path": "/ingredients/0/amount", "value": "2l"},
+                  {"op": "remove", "path": "/ingredients/1"},
+                  {"op": "add", "path": "/ingredients/-", "value": {"name": "Basil", "amount": "1 sprig"}}
+                ]""")));
+
+        // Then SELECT, INSERT, UPDATE ingredient, UPDATE recipe version, DELETE ingredient
+        assertEquals(5, SqlStatementCounter.count());
+        Recipe stored = load(soup.getId());
+        assertEquals(1, stored.getVersion());
+        assertEquals(2, stored.getIngredients().size());
+        Ingredient water = stored.getIngredients().stream().filter(i -> i.getId().equals(waterId)).findFirst().orElseThrow();
+        assertEquals("2l", water.getAmount());
+        assertTrue(stored.getIngredients().stream().anyMatch(i -> "Basil".equals(i.getName())));
+    }
+
+    @Test
+    void patch_WithStaleVersion_ShouldBeRefusedAndStoreNothing() throws Exception {
+        // Given two recipes, one of which was edited after the client read it
+        Recipe soup = recipeRepository.save(recipe("Soup", "Water"));
+        Recipe cake = recipeRepository.save(recipe("Cake", "Sugar"));
+        recipePatchService.patch(List.of(patch(cake.getId(), 0, "{\"name\": \"Cheesecake\"}")));
+
+        // When
+        ResponseStatusException error = assertThrows(ResponseStatusException.class, () -> recipePatchService.patch(List.of(
+                patch(soup.getId(), 0, "{\"name\": \"Tomato soup\"}"),
+                patch(cake.getId(), 0, "{\"name\": \"Carrot cake\"}"))));
+
+        // Then
+        assertEquals(HttpStatus.CONFLICT, error.getStatusCode());
+        assertEquals("Soup", load(soup.getId()).getName());
+        assertEquals("Cheesecake", load(cake.getId()).getName());
+    }
+
+    @Test
+    void patch_WithInvalidOperation_ShouldBeABadRequest() throws Exception {
+        Recipe soup = recipeRepository.save(recipe("Soup", "Water"));
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class, () -> recipePatchService.patch(List.of(
+                patch(soup.getId(), 0, "[{\"op\": \"remove\", \"path\": \"/ingredients/5\"}]"))));
+
+        assertEquals(HttpStatus.BAD_REQUEST, error.getStatusCode());
+    }
+
+    @Test
+    void patch_WithUnknownRecipe_ShouldBeNotFound() throws Exception {
+        ResponseStatusException error = assertThrows(ResponseStatusException.class, () -> recipePatchService.patch(List.of(
+                patch(-1L, 0, "{\"name\": \"Ghost\"}"))));
+
+        assertEquals(HttpStatus.NOT_FOUND, error.getStatusCode());
+    }
+
+    private RecipePatch patch(Long id, long version, String json) throws Exception {
+        JsonNode patch = objectMapper.readTree(json);
+        return RecipePatch.builder().id(id).version(version).patch(patch).build();
+    }
+
+    private Recipe load(Long id) {
+        return recipeRepository.findAllWithIngredientsByIdIn(List.of(id)).get(0);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.example.reciperestapi.auth.model.AuthenticatedUser;
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.model.MealCategory;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.recipe.model.RecipeSearchHit;
+import com.example.reciperestapi.recipe.model.RecipeSearchResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static com.example.reciperestapi.support.RecipeFixtures.recipe;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RecipeSearchServiceTest {
+
+    @Autowired
+    private RecipeSearchService recipeSearchService;
+
+    @Autowired
+    private RecipeSyncService recipeSyncService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepository.deleteAll();
+    }
+
+    @Test
+    void search_ShouldRankNameMatchesFirst() {
+        // Given one recipe named after tomatoes and one that only uses them
+        Recipe soup = recipeRepository.save(recipe("Tomato soup", MealCategory.LUNCH, "Water", "Salt"));
+        Recipe salad = recipeRepository.save(recipe("Green salad", MealCategory.LUNCH, "Tomato", "Lettuce"));
+
+        // When
+        RecipeSearchResponse response = awaitSearch("tomato", r -> r.getTotal() == 2);
+
+        // Then
+        assertEquals(soup.getId(), response.getHits().get(0).getId());
+        assertEquals(salad.getId(), response.getHits().get(1).getId());
+        assertEquals("Tomato soup", response.getHits().get(0).getName());
+        assertEquals(MealCategory.LUNCH, response.getHits().get(0).getCategory());
+    }
+
+    @Test
+    void search_ShouldMatchAllWordsAndPrefixOfTheLast() {
+        recipeRepository.save(recipe("Chocolate cake", MealCategory.DESSERT, "Cocoa", "Flour"));
+        Recipe pancakes = recipeRepository.save(recipe("Pancakes", MealCategory.BREAKFAST, "Flour", "Milk"));
+
+        RecipeSearchResponse response = awaitSearch("flour brea", r -> r.getTotal() > 0);
+
+        assertEquals(1, response.getTotal());
+        assertEquals(pancakes.getId(), response.getHits().get(0).getId());
+    }
+
+    @Test
+    void search_ShouldFollowUpdatesAndDeletes() {
+        // Given an indexed recipe
+        Recipe soup = recipeRepository.save(recipe("Soup", MealCategory.LUNCH, "Water"));
+        Recipe cake = recipeRepository.save(recipe("Cake", MealCategory.DESSERT, "Sugar"));
+        awaitSearch("soup", r -> r.getTotal() == 1);
+        awaitSearch("cake", r -> r.getTotal() == 1);
+
+        // When sync renames one ingredient in place and bulk-deletes the other recipe
+        Recipe edited = recipeRepository.findAllWithIngredientsByIdIn(List.of(soup.getId())).get(0);
+        edited.getIngredients().get(0).setName("Pumpkin");
+        recipeSyncService.sync(List.of(edited));
+
+        // Then
+        awaitSearch("pumpkin", r -> r.getTotal() == 1);
+        awaitSearch("cake", r -> r.getTotal() == 0);
+    }
+
+    @Test
+    void search_ShouldPage() {
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            recipes.add(recipe("Bread " + i, MealCategory.OTHER, "Flour"));
+        }
+        recipeRepository.saveAll(recipes);
+        awaitSearch("bread", r -> r.getTotal() == 25);
+
+        RecipeSearchResponse lastPage = recipeSearchService.search("bread", 2, 10);
+
+        assertEquals(25, lastPage.getTotal());
+        assertEquals(5, lastPage.getHits().size());
+    }
+
+    @Test
+    void search_ShouldOnlyMatchTheUsersOwnRecipes() {
+        // Given a soup of each of two users
+        Recipe alices = asUser(1001L, () -> recipeRepository.save(recipe("Pea soup", MealCategory.LUNCH, "Peas")));
+        asUser(1002L, () -> recipeRepository.save(recipe("Fish soup", MealCategory.LUNCH, "Fish")));
+        awaitSearch("soup", r -> r.getTotal() == 2);
+
+        // When
+        RecipeSearchResponse response = asUser(1001L, () -> recipeSearchService.search("soup", 0, 20));
+
+        // Then
+        assertEquals(1, response.getTotal());
+        assertEquals(alices.getId(), response.getHits().get(0).getId());
+    }
+
+    @Test
+    void search_WithoutWords_ShouldReturnNothing() {
+        RecipeSearchResponse response = recipeSearchService.search("  ,. ", 0, 20);
+
+        assertEquals(0, response.getTotal());
+        assertTrue(response.getHits().isEmpty());
+    }
+
+    private static <T> T asUser(Long id, Supplier<T> action) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(new AuthenticatedUser(id, id + "@example.com"), null, List.of()));
+        try {
+            return action.get();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    // The index is updated on a background thread after commit
+    private RecipeSearchResponse awaitSearch(String query, Predicate<RecipeSearchResponse> condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        RecipeSearchResponse response = recipeSearchService.search(query, 0, 20);
+        while (!condition.test(response) && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+            response = recipeSearchService.search(query, 0, 20);
+        }
+        RecipeSearchResponse last = response;
+        assertTrue(condition.test(last), () -> "Search for '" + query + "' returned "
+                + last.getHits().stream().map(RecipeSearchHit::getName).toList());
+        return last;
+    }
+}
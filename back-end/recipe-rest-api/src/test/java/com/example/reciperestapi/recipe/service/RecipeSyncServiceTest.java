@@ -0,0 +1,93 @@
+package com.example.reciperestapi.recipe.service;
+
+import com.example.reciperestapi.recipe.dao.RecipeRepository;
+import com.example.reciperestapi.recipe.model.MealCategory;
+import com.example.reciperestapi.recipe.model.Recipe;
+import com.example.reciperestapi.recipe.model.RecipeSyncResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static com.example.reciperestapi.support.RecipeFixtures.recipe;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RecipeSyncServiceTest {
+
+    @Autowired
+    private RecipeSyncService recipeSyncService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepository.deleteAll();
+    }
+
+    @Test
+    void sync_ShouldOnlyWriteTheDifferences() {
+        // Given three stored recipes
+        Recipe pancakes = recipeRepository.save(recipe("Pancakes", MealCategory.BREAKFAST, "Flour", "Milk"));
+        Recipe soup = recipeRepository.save(recipe("Soup", MealCategory.LUNCH, "Water"));
+        Recipe cake = recipeRepository.save(recipe("Cake", MealCategory.DESSERT, "Sugar"));
+
+        // When the client keeps pancakes as-is, edits soup, drops cake and adds a new recipe
+        Recipe unchangedPancakes = recipe("Pancakes", MealCategory.BREAKFAST, "Milk", "Flour");
+        unchangedPancakes.setId(pancakes.getId());
+        Recipe editedSoup = recipe("Tomato soup", MealCategory.LUNCH, "Water", "Tomato");
+        editedSoup.setId(soup.getId());
+        Recipe newRecipe = recipe("Steak", MealCategory.DINNER, "Beef");
+
+        RecipeSyncResponse response = recipeSyncService.sync(List.of(unchangedPancakes, editedSoup, newRecipe));
+
+        // Then
+        assertEquals(1, response.getInserted());
+        assertEquals(1, response.getUpdated());
+        assertEquals(1, response.getDeleted());
+        assertEquals(1, response.getUnchanged());
+        assertEquals(pancakes.getId(), response.getIds().get(0));
+        assertEquals(soup.getId(), response.getIds().get(1));
+        assertNotNull(response.getIds().get(2));
+
+        assertFalse(recipeRepository.existsById(cake.getId()));
+        List<Recipe> stored = recipeRepository.findAllWithIngredientsByIdIn(response.getIds());
+        assertEquals(3, stored.size());
+        Recipe storedSoup = stored.stream().filter(r -> r.getId().equals(soup.getId())).findFirst().orElseThrow();
+        assertEquals("Tomato soup", storedSoup.getName());
+        assertEquals(2, storedSoup.getIngredients().size());
+    }
+
+    @Test
+    void sync_WithUnknownId_ShouldInsert() {
+        // Given a recipe the server has never seen
+        Recipe stray = recipe("Stray", MealCategory.OTHER, "Salt");
+        stray.setId(987654L);
+
+        // When
+        RecipeSyncResponse response = recipeSyncService.sync(List.of(stray));
+
+        // Then
+        assertEquals(1, response.getInserted());
+        assertNotEquals(987654L, response.getIds().get(0));
+        assertEquals(1, recipeRepository.count());
+    }
+
+    @Test
+    void contentHash_ShouldIgnoreIdsAndIngredientOrder() {
+        Recipe first = recipe("Pancakes", MealCategory.BREAKFAST, "Flour", "Milk");
+        first.setId(1L);
+        first.getIngredients().get(0).setId(10L);
+        Recipe second = recipe("Pancakes", MealCategory.BREAKFAST, "Milk", "Flour");
+
+        assertEquals(RecipeSyncService.contentHash(first), RecipeSyncService.contentHash(second));
+
+        second.setDescription("changed");
+        assertNotEquals(RecipeSyncService.contentHash(first), RecipeSyncService.contentHash(second));
+    }
+}
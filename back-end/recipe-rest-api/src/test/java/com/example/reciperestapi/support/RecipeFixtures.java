@@ -0,0 +1,35 @@
+package com.example.reciperestapi.support;
+
+import com.example.reciperestapi.recipe.model.Ingredient;
+import com.example.reciperestapi.recipe.model.MealCategory;
+import com.example.reciperestapi.recipe.model.Recipe;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unsaved recipes for tests. Each ingredient gets an amount of "1", and the ingredient list can
+ * be changed afterwards.
+ */
+public final class RecipeFixtures {
+
+    private RecipeFixtures() {
+    }
+
+    public static Recipe recipe(String name, String... ingredientNames) {
+        return recipe(name, MealCategory.LUNCH, ingredientNames);
+    }
+
+    public static Recipe recipe(String name, MealCategory category, String... ingredientNames) {
+        List<Ingredient> ingredients = new ArrayList<>();
+        for (String ingredientName : ingredientNames) {
+            ingredients.add(new Ingredient(null, ingredientName, "1"));
+        }
+        Recipe recipe = new Recipe();
+        recipe.setName(name);
+        recipe.setDescription(name + " description");
+        recipe.setCategory(category);
+        recipe.setIngredients(ingredients);
+        return recipe;
+    }
+}
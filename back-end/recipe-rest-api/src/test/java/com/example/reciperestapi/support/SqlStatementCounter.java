@@ -0,0 +1,30 @@
+package com.example.reciperestapi.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares. Registered for the test profile through
+ * {@code hibernate.session_factory.statement_inspector}. A JDBC batch is prepared once and
+ * executed once, so the count matches the number of database round-trips.
+ *
+ * Counts are kept per thread, so background work such as search indexing does not end up in
+ * the numbers of the request under test.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static long count() {
+        return COUNT.get()[0];
+    }
+}